@@ -0,0 +1,90 @@
+// AggregateTest.java
+
+/** Checks that aggregate infection gives the same epidemics as exact
+ *  <p>With <code>-aggregate</code>, each place infects its occupants as one
+ *  Poisson process instead of drawing a time of infection for each.  On a
+ *  model where nobody moves these are the same process, so over many seeds
+ *  the final size of the epidemic, how many were ever infected, must have
+ *  the same distribution either way.  This compares the mean final size
+ *  and the share of seeds in which the epidemic takes off.  On models where
+ *  people move, the two differ on purpose, see WellMixedPlace.
+ *  <p>Usage: java -ea AggregateTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see WellMixedPlace
+ */
+class AggregateTest {
+    private static final int seeds = 1000; // runs of each engine
+    private static final int population = 60;
+    private static final int outbreak = 10; // more infected than this
+
+    // everybody at home, all in one home
+    private static final String model =
+	"population 60; infected 1;\n"
+	+ "place home 60 0 0.0001;\n"
+	+ "role homebody 1 home;\n"
+	+ "latent 2.0 1.5; asymptomatic 3 2.5;\n"
+	+ "symptomatic 5.5 2.5 0.9; bedridden 8 5 0.9;\n"
+	+ "end 60;\n";
+
+    /** The final sizes of the epidemic over many seeds
+     *  @param file  the model
+     *  @param aggregate  whether to use <code>-aggregate</code>
+     *  @return the final size for each seed
+     */
+    private static double[] finalSizes( String file, boolean aggregate ) {
+	final double[] size = new double[seeds];
+	for (int s = 0; s < seeds; s++) {
+	    final String report = aggregate
+		? TestRun.run( file, "-seed", "" + s, "-aggregate" )
+		: TestRun.run( file, "-seed", "" + s );
+	    size[s] = population - TestRun.last( report )[1];
+	}
+	return size;
+    }
+
+    /** @param x  final sizes
+     *  @return the share of them that are outbreaks
+     */
+    private static double outbreaks( double[] x ) {
+	int n = 0;
+	for (double v: x) if (v > outbreak) n = n + 1;
+	return (double)n / x.length;
+    }
+
+    /** Fail unless two estimates agree within four standard errors
+     *  @param what  what they estimate, for the report
+     *  @param a  the estimate from exact infection
+     *  @param b  the estimate from aggregate infection
+     *  @param v  the variance of their difference
+     */
+    private static void agree( String what, double a, double b, double v ) {
+	final double se = Math.sqrt( v );
+	System.out.printf( "%s: exact %.3f aggregate %.3f (se %.3f)\n",
+	    what, a, b, se
+	);
+	if (Math.abs( a - b ) > 4 * se) {
+	    Error.fatal( what + ": aggregate infection differs from exact" );
+	}
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( model );
+	final double[] exact = finalSizes( file, false );
+	final double[] aggregate = finalSizes( file, true );
+
+	agree( "mean final size",
+	    TestRun.mean( exact ), TestRun.mean( aggregate ),
+	    TestRun.varianceOfMean( exact ) + TestRun.varianceOfMean( aggregate )
+	);
+	final double p = outbreaks( exact );
+	final double q = outbreaks( aggregate );
+	final double pooled = (p + q) / 2;
+	agree( "share of outbreaks", p, q,
+	    2 * pooled * (1 - pooled) / seeds
+	);
+    }
+}
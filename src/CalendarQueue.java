@@ -0,0 +1,191 @@
+// CalendarQueue.java
+
+import java.util.function.Consumer;
+
+/** Pending event set implemented as a calendar queue
+ *  <p>This follows R. Brown's calendar queue (CACM 31, 10, Oct. 1988).
+ *  Time is divided into days of a fixed width, each hashed to a bucket
+ *  holding a sorted list of events, so the buckets form a calendar year
+ *  that wraps around.  When the bucket width suits the distribution of
+ *  event times, add and poll take O(1) amortized time.
+ *  The width is re-estimated each time the number of buckets changes.
+ *  @version Oct. 16, 2026
+ *  @see PendingEventSet
+ */
+class CalendarQueue implements PendingEventSet {
+    private static final int minBuckets = 16;  // never shrink below this
+    private static final int samples = 25;     // events used to set width
+
+    private EventList[] buckets;   // the calendar, length a power of 2
+    private long width;            // the time span of one bucket, > 0
+    private long current;          // the virtual bucket now being examined
+    private long lastTime = 0;     // time of the most recent poll
+    private int count = 0;         // the number of pending events
+
+    /** Construct an empty calendar queue
+     *  @param w  the initial bucket width, a guess at the mean time
+     *            between successive events
+     */
+    CalendarQueue( long w ) {
+	width = w;
+	buckets = newBuckets( minBuckets );
+	current = 0;
+    }
+
+    /** Construct an empty calendar queue with a default initial width
+     */
+    CalendarQueue() {
+	this( Time.minute );
+    }
+
+    private static EventList[] newBuckets( int n ) {
+	EventList[] b = new EventList[n];
+	for (int i = 0; i < n; i++) b[i] = new EventList();
+	return b;
+    }
+
+    /** Which virtual bucket, counting from time zero, holds some time?
+     *  @param t  the time
+     *  @return the virtual bucket number
+     */
+    private long virtual( long t ) {
+	return t / width;
+    }
+
+    public void add( Simulator.RealEvent e ) {
+	long v = virtual( e.time );
+	if (v < current) current = v; // find may have looked past it already
+	if (e.time < lastTime) lastTime = e.time; // odd, but don't lose it
+	buckets[(int)(v & (buckets.length - 1))].insert( e );
+	count = count + 1;
+	if (count > 2 * buckets.length) resize( 2 * buckets.length );
+    }
+
+    public boolean remove( Simulator.RealEvent e ) {
+	if (e.list == null) return false;
+	e.list.unlink( e );
+	count = count - 1;
+	if ((count < buckets.length / 2) && (buckets.length > minBuckets)) {
+	    resize( buckets.length / 2 );
+	}
+	return true;
+    }
+
+    /** Find the earliest event, leaving current pointing at its bucket
+     *  @return the event, or null if there are none
+     */
+    private Simulator.RealEvent find() {
+	if (count == 0) return null;
+	int mask = buckets.length - 1;
+
+	// search one year's worth of buckets, starting where we left off
+	for (int i = 0; i <= mask; i++) {
+	    Simulator.RealEvent e = buckets[(int)(current & mask)].head;
+	    if ((e != null) && (virtual( e.time ) <= current)) return e;
+	    current = current + 1;
+	}
+
+	// nothing this year, so the next event is far off; find it directly
+	Simulator.RealEvent earliest = null;
+	for (EventList b: buckets) {
+	    if ((b.head != null)
+	    &&  ((earliest == null) || b.head.before( earliest ))) {
+		earliest = b.head;
+	    }
+	}
+	current = virtual( earliest.time );
+	return earliest;
+    }
+
+    public Simulator.RealEvent poll() {
+	Simulator.RealEvent e = find();
+	if (e != null) {
+	    lastTime = e.time;
+	    remove( e );
+	}
+	return e;
+    }
+
+    public int pollSimultaneous( EventList l ) {
+	Simulator.RealEvent e = find();
+	if (e == null) return 0;
+	lastTime = e.time;
+	int n = l.takeSimultaneous( e.list ); // they share e's bucket
+	count = count - n;
+	if ((count < buckets.length / 2) && (buckets.length > minBuckets)) {
+	    resize( buckets.length / 2 );
+	}
+	return n;
+    }
+
+    public Simulator.RealEvent peek() {
+	return find();
+    }
+
+    public int size() {
+	return count;
+    }
+
+    public void forEach( Consumer<Simulator.RealEvent> action ) {
+	for (EventList b: buckets) b.forEach( action );
+    }
+
+    /** Estimate a good bucket width from the events due soonest
+     *  <p>This briefly takes the earliest events out of the calendar and
+     *  puts them back, so it must be called before the calendar changes.
+     *  @return the new width, or the old one if there is no basis for a
+     *          change, for example, because all the sampled events are
+     *          simultaneous
+     */
+    private long estimateWidth() {
+	int n = Math.min( count, samples );
+	if (n < 2) return width;
+	EventList sample = new EventList();
+	for (int i = 0; i < n; i++) {
+	    Simulator.RealEvent e = find();
+	    e.list.unlink( e );
+	    sample.append( e );
+	}
+	long span = sample.tail.time - sample.head.time;
+	double mean = (double)span / (n - 1);
+
+	// recompute the mean ignoring gaps that are unusually large
+	long sum = 0;
+	int gaps = 0;
+	for (Simulator.RealEvent e = sample.head; e.next != null; e = e.next) {
+	    long gap = e.next.time - e.time;
+	    if (gap <= 2 * mean) {
+		sum = sum + gap;
+		gaps = gaps + 1;
+	    }
+	}
+
+	// put the sample back where it came from
+	while (sample.head != null) {
+	    Simulator.RealEvent e = sample.removeFirst();
+	    buckets[(int)(virtual( e.time ) & (buckets.length - 1))].insert(e);
+	}
+	current = virtual( lastTime );
+
+	if ((gaps == 0) || (sum <= 0)) return width;
+	return Math.max( 3 * sum / gaps, 1 );
+    }
+
+    /** Rebuild the calendar with a different number of buckets
+     *  @param n  the new number of buckets, a power of 2
+     */
+    private void resize( int n ) {
+	long w = estimateWidth();
+
+	// gather all the events into one list, then spread them out again
+	EventList all = new EventList();
+	for (EventList b: buckets) all.takeAll( b );
+	buckets = newBuckets( n );
+	width = w;
+	while (all.head != null) {
+	    Simulator.RealEvent e = all.removeFirst();
+	    buckets[(int)(virtual( e.time ) & (n - 1))].insert( e );
+	}
+	current = virtual( lastTime );
+    }
+}
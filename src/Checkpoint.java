@@ -0,0 +1,248 @@
+// Checkpoint.java
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+
+/** A snapshot of the complete state of a simulation, for restarting it
+ *  <p>A checkpoint holds the simulator's clock and pending events, the
+ *  state of the random number stream, every place with its contageous
+ *  count and occupants, and every person with their disease state,
+ *  location, pending changes of state and the places and schedules they
+ *  are bound to.  What the model file says, the roles, kinds of places
+ *  and infection rules, is not saved; to restore a checkpoint, the model
+ *  file is read again, but people are not created from it.
+ *  <p>Events are saved by kind, subject and target, so only coded events
+ *  can be checkpointed.  Event handles held by people are saved as the
+ *  number of the event in the checkpoint, places and people as their ids.
+ *  <p>Taking a checkpoint copies the whole state into memory between
+ *  batches of events.  This is an eager copy, not copy-on-write: the
+ *  simulation stalls while the buffer is built, for time in proportion
+ *  to the size of the model.  Only writing the copy, which belongs to the
+ *  checkpoint alone, goes on on another thread while the simulation runs.
+ *  The file is written under a temporary name and then renamed, so a
+ *  crash while writing leaves the previous checkpoint intact.
+ *  <p>Only sequential simulations can be checkpointed.
+ *  @version Oct. 17, 2026 the copy is eager
+ *  @see Simulator#checkpoint
+ *  @see Person#checkpoint
+ *  @see Place#checkpoint
+ */
+class Checkpoint {
+    private static final int magic = 0x434b5054; // "CKPT"
+    private static final int version = 5;
+
+    private ByteBuffer buffer;
+
+    // when writing, the number of each pending event in the checkpoint
+    private final IdentityHashMap<Simulator.Event,Integer> numbers;
+
+    // when reading, the events by number
+    private Simulator.Event[] events = null;
+
+    private Thread writer = null; // writing this checkpoint, if started
+
+    /** Make an empty checkpoint, to be filled in
+     */
+    private Checkpoint() {
+	buffer = ByteBuffer.allocate( 1 << 20 );
+	numbers = new IdentityHashMap<>();
+    }
+
+    /** Make a checkpoint from the contents of a file
+     *  @param b  the contents
+     */
+    private Checkpoint( ByteBuffer b ) {
+	buffer = b;
+	numbers = null;
+    }
+
+    /** Make sure there is room for some more bytes, growing if not
+     *  @param n  the number of bytes needed
+     */
+    private void room( int n ) {
+	if (buffer.remaining() >= n) return;
+	long size = Math.max( 2L * buffer.capacity(), buffer.position() + n );
+	if (size > Integer.MAX_VALUE) Error.fatal( "checkpoint too big" );
+	ByteBuffer b = ByteBuffer.allocate( (int)size );
+	buffer.flip();
+	b.put( buffer );
+	buffer = b;
+    }
+
+    // the primitives used to save and restore each part of a simulation
+
+    void putByte( int b )      { room( 1 ); buffer.put( (byte)b ); }
+    void putInt( int i )       { room( Integer.BYTES ); buffer.putInt( i ); }
+    void putLong( long l )     { room( Long.BYTES ); buffer.putLong( l ); }
+    void putDouble( double d ) { room( Double.BYTES ); buffer.putDouble( d ); }
+
+    int getByte()              { return buffer.get(); }
+    int getInt()               { return buffer.getInt(); }
+    long getLong()             { return buffer.getLong(); }
+    double getDouble()         { return buffer.getDouble(); }
+
+    /** Number a pending event as it is saved
+     *  @param e  the event
+     */
+    void numberEvent( Simulator.Event e ) {
+	numbers.put( e, numbers.size() );
+    }
+
+    /** Save a handle on an event
+     *  @param e  the event, or null
+     *  @return its number, or -1 if it is null or not pending
+     */
+    int event( Simulator.Event e ) {
+	if (e == null) return -1;
+	Integer n = numbers.get( e );
+	return (n == null) ? -1 : n;
+    }
+
+    /** Note the events restored, so handles on them can be restored
+     *  @param e  the events, by number
+     */
+    void setEvents( Simulator.Event[] e ) {
+	events = e;
+    }
+
+    /** Restore a handle on an event
+     *  @param n  the number of the event
+     *  @return the event, or null if n is -1
+     */
+    Simulator.Event event( int n ) {
+	return (n < 0) ? null : events[n];
+    }
+
+    /** The number used for a place in a checkpoint
+     *  @param p  the place, or null
+     *  @return its id, or -1 for null
+     */
+    static int place( Place p ) {
+	return (p == null) ? -1 : p.id;
+    }
+
+    /** Restore a place from its number
+     *  @param ctx  the simulation being restored
+     *  @param n  the number of the place
+     *  @return the place, or null if n is -1
+     */
+    static Place place( SimulationContext ctx, int n ) {
+	return (n < 0) ? null : ctx.allPlaces.get( n );
+    }
+
+    /** Take a checkpoint of a simulation
+     *  <p>This must be called between batches of events, when nothing is
+     *  being simulated, and the simulation waits until it returns.
+     *  @param ctx  the simulation
+     *  @return the checkpoint, not yet written
+     */
+    static Checkpoint take( SimulationContext ctx ) {
+	Checkpoint c = new Checkpoint();
+	c.putInt( magic );
+	c.putInt( version );
+	c.putInt( ctx.allRoles.size() );
+	c.putInt( ctx.allPlaceKinds.size() );
+	ctx.rand.checkpoint( c );
+	ctx.simulator.checkpoint( c );
+
+	c.putInt( ctx.allPlaces.size() );
+	for (Place p: ctx.allPlaces) p.checkpoint( c );
+	c.putInt( ctx.allPeople.size() );
+	for (Person p: ctx.allPeople) p.checkpoint( c );
+	for (Place p: ctx.allPlaces) p.checkpointOccupants( c );
+	return c;
+    }
+
+    /** Start writing this checkpoint to a file, on another thread
+     *  @param file  the name of the file, which is replaced
+     */
+    void writeAsync( String file ) {
+	buffer.flip();
+	writer = new Thread( ()-> write( file ), "checkpoint" );
+	writer.start();
+    }
+
+    /** Write this checkpoint to a file
+     *  @param file  the name of the file, which is replaced
+     */
+    private void write( String file ) {
+	Path path = Path.of( file );
+	Path temp = Path.of( file + ".tmp" );
+	try (FileChannel ch = FileChannel.open( temp,
+		StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		StandardOpenOption.TRUNCATE_EXISTING
+	)) {
+	    while (buffer.hasRemaining()) ch.write( buffer );
+	    ch.force( false );
+	} catch (IOException e) {
+	    Error.fatal( "could not write checkpoint " + file
+		+ ": " + e.getMessage()
+	    );
+	}
+	try {
+	    Files.move( temp, path,
+		StandardCopyOption.REPLACE_EXISTING,
+		StandardCopyOption.ATOMIC_MOVE
+	    );
+	} catch (IOException e) {
+	    Error.fatal( "could not replace checkpoint " + file
+		+ ": " + e.getMessage()
+	    );
+	}
+    }
+
+    /** Wait until this checkpoint has been written
+     */
+    void finish() {
+	if (writer == null) return;
+	try {
+	    writer.join();
+	} catch (InterruptedException e) {
+	    Error.fatal( "interrupted writing a checkpoint" );
+	}
+    }
+
+    /** Restore a simulation from a checkpoint file
+     *  <p>The model file must have been read into the simulation, but
+     *  nobody and nothing created from it; no events may be pending.
+     *  @param ctx  the simulation
+     *  @param file  the name of the checkpoint file
+     */
+    static void restore( SimulationContext ctx, String file ) {
+	Checkpoint c = null;
+	try {
+	    c = new Checkpoint( ByteBuffer.wrap(
+		Files.readAllBytes( Path.of( file ) )
+	    ) );
+	} catch (IOException e) {
+	    Error.fatal( "could not read checkpoint " + file
+		+ ": " + e.getMessage()
+	    );
+	}
+	if ((c.getInt() != magic) || (c.getInt() != version)) {
+	    Error.fatal( file + ": not a checkpoint" );
+	}
+	if ((c.getInt() != ctx.allRoles.size())
+	||  (c.getInt() != ctx.allPlaceKinds.size())) {
+	    Error.fatal( file + ": checkpoint does not match the model" );
+	}
+	ctx.rand.restore( c );
+	ctx.simulator.restore( c );
+
+	final int places = c.getInt();
+	for (int i = 0; i < places; i++) Place.restore( ctx, c );
+	ctx.placeStore.trim();
+	final int people = c.getInt();
+	for (int i = 0; i < people; i++) Person.restore( ctx, c );
+	for (Place p: ctx.allPlaces) p.restoreOccupants( c );
+	if (ctx.occupancy != null) {
+	    ctx.occupancy.recount( ctx.placeStore, ctx.simulator.now() );
+	}
+    }
+}
@@ -0,0 +1,62 @@
+// CheckpointTest.java
+
+/** Checks that a run restored from a checkpoint goes on as the original
+ *  <p>Each run saves a checkpoint every ten days; the file then holds the
+ *  last one.  A run restored from it must print exactly the report lines
+ *  that the original printed after that time, and taking checkpoints must
+ *  not change the original run.  This is checked for several seeds and
+ *  for the options that change what a checkpoint holds.
+ *  <p>Usage: java -ea CheckpointTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see Checkpoint
+ */
+class CheckpointTest {
+    private static final int seeds = 5;
+    private static final int days = 10; // between checkpoints
+    private static final int end = 45;
+
+    // the options that change what is saved, one set per check
+    private static final String[][] options = {
+	{}, { "-aggregate" }, { "-hazardclock" }, { "-adaptive" }, { "-wheel" }
+    };
+
+    /** Check one way of running the model
+     *  @param file  the model
+     *  @param checkpoint  where to save
+     *  @param o  the options
+     */
+    private static void check( String file, String checkpoint, String[] o ) {
+	final String label = (o.length == 0) ? "default" : String.join( " ", o );
+	for (int s = 0; s < seeds; s++) {
+	    final String what = label + " seed " + s;
+	    final String original = TestRun.run( TestRun.line( file, s, o ) );
+	    final String saving = TestRun.run( TestRun.line( file, s, o,
+		"-checkpoint", checkpoint, "" + days
+	    ) );
+	    if (!original.equals( saving )) {
+		Error.fatal( what + ": taking checkpoints changed the run" );
+	    }
+
+	    // the report lines after the last checkpoint, at day 40
+	    final String restored = TestRun.run( TestRun.line( file, s, o,
+		"-restore", checkpoint
+	    ) );
+	    final String after = ((end - 1) / days * days + 1) + ".0,";
+	    final int i = original.indexOf( "\n" + after );
+	    if ((i < 0) || !restored.equals( original.substring( i + 1 ) )) {
+		Error.fatal( what + ": restored run differs from the original" );
+	    }
+	}
+	System.out.println( label + ": restored run goes on as the original" );
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( TestRun.town( end ) );
+	final String checkpoint = TestRun.temp( ".ckpt" );
+	for (String[] o: options) check( file, checkpoint, o );
+    }
+}
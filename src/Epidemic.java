@@ -1,12 +1,18 @@
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * The main class of an epidemic simulator
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
+ * @version Oct. 17, 2026 options read from tables, many ways to simulate
  * @see MyScanner This class should never be instantiated. All methods here are
  *      static and all but the main method are private.
  * @see Role for the framework that creates people
@@ -18,11 +24,17 @@ public class Epidemic {
 	/**
 	 * Read the details of the model from an input stream
 	 * 
-	 * @param in -- the stream Identifies the keywords population, role, etc and
-	 *           farms out the work for most of these to the classes that construct
-	 *           model parts. The exception (for now) is the total population.
+	 * @param ctx -- the simulation to build the model in
+	 * @param in  -- the stream Identifies the keywords population, role, etc and
+	 *            farms out the work for most of these to the classes that
+	 *            construct model parts. The exception (for now) is the total
+	 *            population.
+	 * @param populate -- false if the people and places will come from a
+	 *            checkpoint instead of being created here
+	 * @return the end of time, when the simulation should stop, in ticks
 	 */
-	private static void buildModel(MyScanner in) {
+	private static long buildModel(SimulationContext ctx, MyScanner in,
+			boolean populate) {
 		int pop = 0; // the population of the model, 0 = uninitialized
 		int infected = 0; // number initially infected, 0 = uninitialized
 		double endOfTime = 0.0; // 0.0 = uninitialized
@@ -81,9 +93,9 @@ public class Epidemic {
 					endOfTime = et;
 				}
 			} else if ("role".equals(keyword)) {
-				new Role(in);
+				new Role(ctx, in);
 			} else if ("place".equals(keyword)) {
-				new PlaceKind(in);
+				new PlaceKind(ctx, in);
 			} else if (keyword == "???") { // there was no keyword
 				// == is allowed here 'cause we're detecting the default value
 				// we need to advance the scanner here or we'd stick in a loop
@@ -111,36 +123,386 @@ public class Epidemic {
 
 		Error.exitIfWarnings("Aborted due to errors in input");
 
-		Person.setDiseaseParameters(latent, asymptomatic, symptomatic, bedridden);
+		Person.setDiseaseParameters(ctx, latent, asymptomatic, symptomatic, bedridden);
 
-		Simulator.schedule( // schedule the end of time
-				endOfTime * Time.day, (double t) -> System.exit(0));
+		if (populate) {
+			// Role is responsible for figuring out how many people per role
+			Role.populateRoles(ctx, pop, infected);
 
-		// Role is responsible for figuring out how many people per role
-		Role.populateRoles(pop, infected);
+			// Schedule the first of the daily reports to be printed
+			Person.startReporting(ctx, true);
+		}
+
+		return Time.ticks(endOfTime * Time.day);
+	}
+
+	/**
+	 * Make a pending event set
+	 * 
+	 * @param option -- the command line option naming the implementation
+	 * @return a new empty pending event set
+	 */
+	private static PendingEventSet newEventSet(String option) {
+		if ("-calendar".equals(option))
+			return new CalendarQueue();
+		if ("-ladder".equals(option))
+			return new LadderQueue();
+		if ("-wheel".equals(option))
+			return new TwoTierEventSet();
+		return new HeapEventSet();
+	}
+
+	/**
+	 * What the command line asks for
+	 * 
+	 * @see #main for what each option means
+	 */
+	private static class Options {
+		String fileName = null;
+		String eventSet = "-heap"; // which pending event set to use
+		Long seed = null; // null means unpredictable
+		int replicas = 1;
+		int threads = 1; // partitions of each simulation
+		boolean timeWarp = false; // optimistic instead of conservative
+		SimulatorStatistics stats = null; // null unless wanted
+		String traceName = null; // file to record events in, if any
+		String replayName = null; // trace to replay instead of simulating
+		String treeName = null; // file to record infections in, if any
+		String printTreeName = null; // tree to print instead of simulating
+		String checkpointName = null; // file to checkpoint to, if any
+		long checkpointDays = 0; // how often to checkpoint
+		String restoreName = null; // checkpoint to start from, if any
+		boolean fastForward = false; // skip moves while nobody is contageous
+		boolean aggregate = false; // use WellMixedPlace
+		boolean hazardClock = false; // see Person.hazardRate
+		boolean adaptive = false; // see PlaceKind.classFor
+		boolean occupancy = false; // see Occupancy
+
+		/**
+		 * @return true if one simulation is split into partitions
+		 */
+		boolean parallel() {
+			return (threads > 1) || timeWarp;
+		}
+
+		/**
+		 * @return true if this is one simulation, not split or replicated
+		 */
+		boolean single() {
+			return !parallel() && (replicas == 1);
+		}
+
+		/**
+		 * @return true if the run is saved or restored
+		 */
+		boolean checkpointed() {
+			return (checkpointName != null) || (restoreName != null);
+		}
+	}
+
+	/**
+	 * One command line option
+	 */
+	private static class Option {
+		final String name; // as typed on the command line
+		final String values; // what follows it, for error messages
+		final int count; // how many arguments follow it
+		final BiConsumer<Options, String[]> set; // from those arguments
+
+		/**
+		 * @param n -- its name
+		 * @param v -- what follows it, or null if nothing
+		 * @param c -- how many arguments follow it
+		 * @param s -- what it sets, given the arguments following it
+		 */
+		Option(String n, String v, int c, BiConsumer<Options, String[]> s) {
+			name = n;
+			values = v;
+			count = c;
+			set = s;
+		}
+	}
+
+	// every option, see main
+	private static final Option[] options = {
+			new Option("-heap", null, 0, (o, v) -> o.eventSet = "-heap"),
+			new Option("-calendar", null, 0, (o, v) -> o.eventSet = "-calendar"),
+			new Option("-ladder", null, 0, (o, v) -> o.eventSet = "-ladder"),
+			new Option("-wheel", null, 0, (o, v) -> o.eventSet = "-wheel"),
+			new Option("-seed", "value", 1, (o, v) -> o.seed = number("-seed", v[0])),
+			new Option("-replicas", "value", 1,
+					(o, v) -> o.replicas = (int) positive("-replicas", v[0],
+							"not positive")),
+			new Option("-threads", "value", 1,
+					(o, v) -> o.threads = (int) positive("-threads", v[0],
+							"not positive")),
+			new Option("-timewarp", null, 0, (o, v) -> o.timeWarp = true),
+			new Option("-hazardclock", null, 0, (o, v) -> o.hazardClock = true),
+			new Option("-adaptive", null, 0, (o, v) -> o.adaptive = true),
+			new Option("-aggregate", null, 0, (o, v) -> o.aggregate = true),
+			new Option("-occupancy", null, 0, (o, v) -> o.occupancy = true),
+			new Option("-fastforward", null, 0, (o, v) -> o.fastForward = true),
+			new Option("-stats", null, 0, (o, v) -> o.stats = new SimulatorStatistics()),
+			new Option("-trace", "file name", 1, (o, v) -> o.traceName = v[0]),
+			new Option("-replay", "file name", 1, (o, v) -> o.replayName = v[0]),
+			new Option("-tree", "file name", 1, (o, v) -> o.treeName = v[0]),
+			new Option("-printtree", "file name", 1, (o, v) -> o.printTreeName = v[0]),
+			new Option("-checkpoint", "file name or interval", 2, (o, v) -> {
+				o.checkpointName = v[0];
+				o.checkpointDays = positive("-checkpoint " + v[0], v[1],
+						"interval not positive");
+			}),
+			new Option("-restore", "file name", 1, (o, v) -> o.restoreName = v[0]), };
+
+	/**
+	 * A combination of options that cannot be run
+	 */
+	private static class Conflict {
+		final Predicate<Options> when;
+		final String why;
+
+		/**
+		 * @param w -- when the options conflict
+		 * @param y -- the error message saying why
+		 */
+		Conflict(Predicate<Options> w, String y) {
+			when = w;
+			why = y;
+		}
+	}
+
+	// every combination of options that cannot be run
+	private static final Conflict[] conflicts = {
+			new Conflict(o -> o.parallel() && (o.replicas > 1),
+					"-threads and -replicas cannot be combined"),
+			new Conflict(o -> (o.traceName != null) && !o.single(),
+					"-trace only works for a single sequential simulation"),
+			new Conflict(o -> (o.treeName != null) && !o.single(),
+					"-tree only works for a single sequential simulation"),
+			new Conflict(o -> o.checkpointed() && !o.single(),
+					"-checkpoint and -restore only work for a single sequential"
+							+ " simulation"),
+			new Conflict(o -> (o.aggregate || o.hazardClock || o.adaptive) && o.timeWarp,
+					"-aggregate, -hazardclock and -adaptive"
+							+ " cannot be combined with -timewarp"),
+			new Conflict(o -> o.aggregate && o.adaptive,
+					"-aggregate cannot be combined with -adaptive"),
+			new Conflict(o -> o.occupancy
+					&& (o.timeWarp || o.fastForward || (o.traceName != null)),
+					"-occupancy cannot be combined with -timewarp, -fastforward"
+							+ " or -trace"),
+			new Conflict(o -> o.fastForward && o.parallel(),
+					"-fastforward only works for sequential simulation"),
+			new Conflict(o -> o.fastForward
+					&& ((o.traceName != null) || o.checkpointed()),
+					"-fastforward cannot be combined with -trace, -checkpoint"
+							+ " or -restore"), };
+
+	/**
+	 * Get the number following a command line option
+	 * 
+	 * @param option -- the option, for error messages
+	 * @param value  -- the text of the number
+	 * @return the value
+	 */
+	private static long number(String option, String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			Error.fatal(option + " " + value + ": not a number");
+			return 0; // never happens, fatal does not return
+		}
+	}
+
+	/**
+	 * Get the positive number following a command line option
+	 * 
+	 * @param option -- the option, for error messages
+	 * @param value  -- the text of the number
+	 * @param why    -- the error message if it is not positive
+	 * @return the value
+	 */
+	private static long positive(String option, String value, String why) {
+		final long n = number(option, value);
+		if (n < 1)
+			Error.fatal(option + " " + n + ": " + why);
+		return n;
+	}
+
+	/**
+	 * Read the command line
+	 * 
+	 * @param args -- the command line arguments
+	 * @return what they ask for, not yet checked for conflicts
+	 */
+	private static Options parse(String[] args) {
+		final Options o = new Options();
+		for (int i = 0; i < args.length; i++) {
+			final String arg = args[i];
+			Option option = null;
+			for (Option p : options)
+				if (p.name.equals(arg))
+					option = p;
+			if (option != null) {
+				if (i + option.count >= args.length)
+					Error.fatal(arg + ": missing " + option.values);
+				final int first = i + 1; // of its arguments
+				final int past = first + option.count;
+				option.set.accept(o, Arrays.copyOfRange(args, first, past));
+				i = i + option.count;
+			} else if (arg.startsWith("-")) {
+				Error.warn("unknown option: " + arg);
+			} else if (o.fileName == null) {
+				o.fileName = arg;
+			} else {
+				Error.warn("too many arguments: " + arg);
+			}
+		}
+		return o;
+	}
 
-		// Schedule the first of the daily reports to be printed
-		Simulator.schedule(0.0, (double t) -> Person.report(t));
+	/**
+	 * How to run the program, printed when the command line is wrong
+	 * 
+	 * @return one line per way of running it
+	 */
+	private static String usage() {
+		return "usage: java Epidemic [options] file\n"
+				+ "       java Epidemic -replay t\n"
+				+ "       java Epidemic -printtree t";
 	}
 
 	/**
 	 * The main method
+	 * <p>
+	 * Usage: <code>java Epidemic [options] file</code>, where the options are
+	 * <ul>
+	 * <li><code>-heap</code>, <code>-calendar</code>, <code>-ladder</code> or
+	 * <code>-wheel</code> selects the pending event set
+	 * <li><code>-seed n</code> makes the run repeatable
+	 * <li><code>-replicas n</code> runs n simulations, replica i with seed n+i
+	 * <li><code>-threads n</code> splits one simulation into n partitions
+	 * <li><code>-timewarp</code> runs the partitions optimistically
+	 * <li><code>-stats</code> reports what the simulator did on stderr
+	 * <li><code>-trace t</code> records every event in the file t
+	 * <li><code>-checkpoint c days</code> saves the run in c every so many days
+	 * <li><code>-restore c</code> continues the run saved in c
+	 * <li><code>-fastforward</code> skips moves while nobody is contageous
+	 * <li><code>-aggregate</code> makes infection one process per place
+	 * <li><code>-hazardclock</code> infects at a threshold of hazard
+	 * <li><code>-adaptive</code> chooses the class of each place by its size,
+	 * and turns on <code>-hazardclock</code>, which small places need
+	 * <li><code>-tree t</code> records who infected whom in the file t
+	 * <li><code>-occupancy</code> reports person-hours per kind of place
+	 * </ul>
+	 * <code>java Epidemic -replay t</code> prints a traced run again, and
+	 * <code>java Epidemic -printtree t</code> prints a tree as CSV.
 	 * 
-	 * @param args -- the command line arguments Most of this code is entirely about
-	 *             command line argument processing. It calls buildModel and will
-	 *             eventuall also start the simulation.
+	 * @param args -- the command line arguments, see above
 	 */
 	public static void main(String[] args) {
-		if (args.length < 1)
-			Error.fatal("missing file name");
-		if (args.length > 1)
-			Error.warn("too many arguments: " + args[1]);
-		try {
-			buildModel(new MyScanner(new File(args[0])));
-			// Person.printAll(); // BUG: potentially useful for debugging
-			Simulator.run();
-		} catch (FileNotFoundException e) {
-			Error.fatal("could not open file: " + args[0]);
+		final Options o = parse(args);
+		if (o.replayName != null) { // no model, no simulation
+			EventTrace.replay(o.replayName, System.out);
+			return;
+		}
+		if (o.printTreeName != null) { // no model, no simulation
+			TransmissionTree.print(o.printTreeName, System.out);
+			return;
+		}
+		if (o.fileName == null)
+			Error.fatal("missing file name\n" + usage());
+		for (Conflict c : conflicts)
+			if (c.when.test(o))
+				Error.fatal(c.why);
+
+		// build each replica from its own reading of the model
+		final SimulationContext[] sims = new SimulationContext[o.replicas];
+		final ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[o.replicas];
+		long endOfTime = 0; // the same for all replicas
+		for (int i = 0; i < o.replicas; i++) {
+			MyRandom rand = (o.seed == null) ? new MyRandom() : new MyRandom(o.seed + i);
+			PrintStream out = System.out;
+			if (o.replicas > 1) {
+				outputs[i] = new ByteArrayOutputStream();
+				out = new PrintStream(outputs[i]);
+			}
+			sims[i] = new SimulationContext(rand, out);
+			sims[i].simulator.useEventSet(newEventSet(o.eventSet));
+			sims[i].fastForward = o.fastForward;
+			sims[i].wellMixed = o.aggregate;
+			// small places need hazard clocks, which are all or none
+			sims[i].hazardClock = o.hazardClock || o.adaptive;
+			sims[i].adaptive = o.adaptive;
+			if (o.occupancy)
+				sims[i].occupancy = new Occupancy(sims[i]);
+			if (o.stats != null)
+				sims[i].simulator.useStatistics((i == 0) ? o.stats : o.stats.part());
+			try {
+				final MyScanner in = new MyScanner(new File(o.fileName));
+				endOfTime = buildModel(sims[i], in, o.restoreName == null);
+			} catch (FileNotFoundException e) {
+				Error.fatal("could not open file: " + o.fileName);
+			}
+		}
+		if (o.timeWarp && PlaceKind.anyLeaping(sims[0]))
+			Error.fatal("tau leaped places cannot be simulated with -timewarp");
+		if (o.restoreName != null)
+			Checkpoint.restore(sims[0], o.restoreName);
+		// Person.printAll(sims[0]); // BUG: potentially useful for debugging
+		if (o.traceName != null)
+			sims[0].trace = new EventTrace(sims[0], o.traceName);
+		if (o.treeName != null)
+			sims[0].tree = new TransmissionTree(sims[0], o.treeName,
+					o.restoreName == null);
+
+		final long end = endOfTime;
+		final long start = System.nanoTime();
+		final Supplier<PendingEventSet> sets = () -> newEventSet(o.eventSet);
+		if (o.timeWarp) { // one simulation split among many cores, optimistically
+			TimeWarpSimulator tw = new TimeWarpSimulator(sims[0], o.threads, sets);
+			tw.runUntil(end);
+			if (o.stats != null)
+				tw.printStatistics(System.err);
+		} else if (o.threads > 1) { // one simulation split among many cores
+			ParallelSimulator ps = new ParallelSimulator(sims[0], o.threads, sets);
+			ps.runUntil(end);
+			if (o.stats != null)
+				ps.printStatistics(System.err);
+		} else if (o.checkpointName != null) { // stopping now and then to save
+			final Simulator sim = sims[0].simulator;
+			final long interval = o.checkpointDays * Time.day;
+			Checkpoint previous = null; // the one still being written
+			for (long t = sim.now() + interval; t < end; t = t + interval) {
+				sim.runUntil(t);
+				if (previous != null)
+					previous.finish();
+				previous = Checkpoint.take(sims[0]);
+				previous.writeAsync(o.checkpointName);
+			}
+			sim.runUntil(end);
+			if (previous != null)
+				previous.finish();
+		} else {
+			// run the replicas, each on whatever core is free
+			Arrays.stream(sims).parallel()
+					.forEach((SimulationContext s) -> s.simulator.runUntil(end));
+
+			if (o.replicas > 1) {
+				for (int i = 0; i < o.replicas; i++) {
+					sims[i].out.flush();
+					System.out.write(outputs[i].toByteArray(), 0, outputs[i].size());
+				}
+				System.out.flush();
+			}
+		}
+		if (sims[0].trace != null)
+			sims[0].trace.close();
+		if (sims[0].tree != null)
+			sims[0].tree.close();
+		if (o.stats != null) {
+			System.out.flush();
+			o.stats.print(System.err, (System.nanoTime() - start) / 1e9);
 		}
 	}
-}
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+// EventKind.java
+
+/** The kinds of coded events in the epidemic model
+ *  <p>Each kind names a schedulable event service routine.  Coded events
+ *  carry one of these plus the integer id of a subject, usually a person,
+ *  and sometimes a target, so scheduling them needs no lambda expression.
+ *  Simultaneous events are simulated in the order of this enumeration,
+ *  so all moves at any instant come before <code>sync</code>.
+ *  @version Oct. 16, 2026
+ *  @see Simulator.Dispatcher
+ *  @see Person#dispatch for the code that simulates each kind
+ */
+enum EventKind {
+    go( true ),            // person follows schedule number target
+    goHome( true ),        // person goes home from schedule number target
+    sync( true ),          // end of moves in a step of a ParallelSimulator
+                           // partition
+    infect( false ),       // person becomes infected
+    transmit( false ),     // someone at place subject becomes infected,
+                           // see WellMixedPlace
+    beContageous( false ), // and so on through the disease states
+    feelSick( false ),
+    goToBed( false ),
+    recover( false ),
+    die( false ),
+    report( true );        // print population statistics, no subject
+
+    /** Do events of this kind only happen at a few fixed times of day?
+     *  @see TwoTierEventSet
+     */
+    final boolean daily;
+
+    EventKind( boolean d ) {
+	daily = d;
+    }
+}
@@ -0,0 +1,195 @@
+// EventList.java
+
+import java.util.function.Consumer;
+
+/** Doubly linked list of events, threaded through the events themselves
+ *  <p>This is the building block for pending event sets made of buckets.
+ *  Because the links are fields of the events, putting an event in a list
+ *  or taking it out never allocates anything.
+ *  An event may be in at most one list at a time.
+ *  @version Oct. 16, 2026
+ *  @see CalendarQueue
+ *  @see LadderQueue
+ */
+class EventList {
+    Simulator.RealEvent head = null; // the first event in the list
+    Simulator.RealEvent tail = null; // the last event in the list
+    int count = 0;                   // how many events are in the list
+
+    /** Add an event to the end of the list, ignoring order
+     *  @param e  the event
+     */
+    void append( Simulator.RealEvent e ) {
+	e.list = this;
+	e.next = null;
+	e.prev = tail;
+	if (tail == null) {
+	    head = e;
+	} else {
+	    tail.next = e;
+	}
+	tail = e;
+	count = count + 1;
+    }
+
+    /** Add an event to a sorted list, keeping it sorted
+     *  <p>The search starts at the tail, so events added in roughly time
+     *  order, including runs of simultaneous events, are added cheaply.
+     *  @param e  the event
+     */
+    void insert( Simulator.RealEvent e ) {
+	Simulator.RealEvent p = tail;
+	while ((p != null) && e.before( p )) p = p.prev;
+	if (p == tail) {
+	    append( e );
+	    return;
+	}
+	// e goes right after p, where p == null means at the head
+	Simulator.RealEvent n = (p == null) ? head : p.next;
+	e.list = this;
+	e.prev = p;
+	e.next = n;
+	n.prev = e;
+	if (p == null) {
+	    head = e;
+	} else {
+	    p.next = e;
+	}
+	count = count + 1;
+    }
+
+    /** Take an event out of this list
+     *  @param e  the event, which must be in this list
+     */
+    void unlink( Simulator.RealEvent e ) {
+	if (e.prev == null) {
+	    head = e.next;
+	} else {
+	    e.prev.next = e.next;
+	}
+	if (e.next == null) {
+	    tail = e.prev;
+	} else {
+	    e.next.prev = e.prev;
+	}
+	e.list = null;
+	e.next = null;
+	e.prev = null;
+	count = count - 1;
+    }
+
+    /** Take the first event out of this list
+     *  @return the event, or null if the list is empty
+     */
+    Simulator.RealEvent removeFirst() {
+	Simulator.RealEvent e = head;
+	if (e != null) unlink( e );
+	return e;
+    }
+
+    /** Move the entire content of another list to the end of this one
+     *  <p>This leaves the other list empty.
+     *  @param l  the other list
+     */
+    void takeAll( EventList l ) {
+	if (l.head == null) return;
+	for (Simulator.RealEvent e = l.head; e != null; e = e.next) {
+	    e.list = this;
+	}
+	if (tail == null) {
+	    head = l.head;
+	} else {
+	    tail.next = l.head;
+	    l.head.prev = tail;
+	}
+	tail = l.tail;
+	count = count + l.count;
+	l.head = null;
+	l.tail = null;
+	l.count = 0;
+    }
+
+    /** Move the leading run of simultaneous events from another list
+     *  <p>If the other list is sorted, these are its earliest events.
+     *  @param l  the other list
+     *  @return the number of events moved
+     */
+    int takeSimultaneous( EventList l ) {
+	if (l.head == null) return 0;
+	final long t = l.head.time;
+	int n = 0;
+	while ((l.head != null) && (l.head.time == t)) {
+	    append( l.removeFirst() );
+	    n = n + 1;
+	}
+	return n;
+    }
+
+    /** Sort this list into time order
+     *  <p>This is a stable merge sort, so simultaneous events stay in the
+     *  order they were added.  It uses no storage beyond the events.
+     */
+    void sort() {
+	head = mergeSort( head, count );
+	// merge sort only maintained the forward links, repair the others
+	Simulator.RealEvent p = null;
+	for (Simulator.RealEvent e = head; e != null; e = e.next) {
+	    e.prev = p;
+	    p = e;
+	}
+	tail = p;
+    }
+
+    /** Sort a forward linked list
+     *  @param h  the head of the list
+     *  @param n  the number of events in it
+     *  @return the head of the sorted list
+     */
+    private static Simulator.RealEvent mergeSort( Simulator.RealEvent h, int n ) {
+	if (n <= 1) {
+	    if (h != null) h.next = null;
+	    return h;
+	}
+	// split the list after n/2 events
+	int half = n / 2;
+	Simulator.RealEvent m = h;
+	for (int i = 1; i < half; i++) m = m.next;
+	Simulator.RealEvent second = m.next;
+	m.next = null;
+	Simulator.RealEvent a = mergeSort( h, half );
+	Simulator.RealEvent b = mergeSort( second, n - half );
+
+	// merge, taking from a on ties to keep the sort stable
+	Simulator.RealEvent first = null;
+	Simulator.RealEvent last = null;
+	while ((a != null) && (b != null)) {
+	    Simulator.RealEvent e;
+	    if (b.before( a )) {
+		e = b;
+		b = b.next;
+	    } else {
+		e = a;
+		a = a.next;
+	    }
+	    if (last == null) {
+		first = e;
+	    } else {
+		last.next = e;
+	    }
+	    last = e;
+	}
+	Simulator.RealEvent rest = (a != null) ? a : b;
+	if (last == null) return rest;
+	last.next = rest;
+	return first;
+    }
+
+    /** Do something to each event in the list, in order
+     *  @param action  what to do to each event, it must not change the list
+     */
+    void forEach( Consumer<Simulator.RealEvent> action ) {
+	for (Simulator.RealEvent e = head; e != null; e = e.next) {
+	    action.accept( e );
+	}
+    }
+}
@@ -0,0 +1,263 @@
+// EventTrace.java
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** A binary record of every coded event a simulation dispatches
+ *  <p>The file begins with a snapshot of the model as simulation starts:
+ *  where each person is and what disease state they are in, and how many
+ *  contageous people each place counts.  After that comes one fixed-size
+ *  record per event, giving its time, its kind, the person involved and
+ *  the place where that person is once the event is over.  That is enough
+ *  to replay the population statistics and the state of every place
+ *  without rebuilding the model and without drawing a random number.
+ *  The file ends with the state of each place as simulation stopped, which
+ *  the replay checks against the state it rebuilt.
+ *  <p>Records are appended to a memory-mapped window of the file, so
+ *  writing one costs a few stores; the window slides forward when it
+ *  fills, and the file is trimmed to size when the trace is closed.
+ *  <p>Only sequential simulations can be traced, since the partitions of a
+ *  parallel simulation do not dispatch their events in one order.
+ *  @version Oct. 16, 2026
+ *  @see SimulationContext#dispatch
+ *  @see Person#stateAfter for the rules the replay follows
+ */
+class EventTrace {
+    private static final int magic = 0x45564e54; // "EVNT"
+    private static final int version = 2;
+    private static final int headerSize = 4 * Integer.BYTES + Long.BYTES;
+    private static final int countOffset = 4 * Integer.BYTES; // of records
+    private static final int recordSize = Long.BYTES + 1 + 2 * Integer.BYTES;
+    private static final long window = 64L << 20; // bytes mapped at once
+
+    private final SimulationContext ctx;   // the simulation traced
+    private final FileChannel channel;
+    private final FileChannel.MapMode mode;
+    private long base = 0;                 // file offset of the window
+    private MappedByteBuffer buffer = null;
+    private long records = 0;              // events recorded so far
+
+    /** Start tracing a simulation
+     *  <p>The model must be built, and simulation not yet begun.
+     *  @param c  the simulation
+     *  @param file  the name of the trace file, which is replaced
+     */
+    EventTrace( SimulationContext c, String file ) {
+	ctx = c;
+	mode = FileChannel.MapMode.READ_WRITE;
+	channel = open( file,
+	    StandardOpenOption.CREATE, StandardOpenOption.READ,
+	    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+	);
+
+	room( headerSize );
+	buffer.putInt( magic );
+	buffer.putInt( version );
+	buffer.putInt( ctx.allPlaces.size() );
+	buffer.putInt( ctx.allPeople.size() );
+	buffer.putLong( 0 ); // the number of records, filled in by close
+	for (Place p: ctx.allPlaces) {
+	    room( Integer.BYTES );
+	    buffer.putInt( p.contageousCount() );
+	}
+	for (Person p: ctx.allPeople) {
+	    room( Integer.BYTES + 1 );
+	    buffer.putInt( p.location() );
+	    buffer.put( (byte)p.state() );
+	}
+    }
+
+    /** Open an existing trace to replay it
+     *  @param file  the name of the trace file
+     */
+    private EventTrace( String file ) {
+	ctx = null;
+	mode = FileChannel.MapMode.READ_ONLY;
+	channel = open( file, StandardOpenOption.READ );
+    }
+
+    /** Open a trace file, any failure is fatal
+     *  @param file  the name of the file
+     *  @param options  how to open it
+     *  @return the channel
+     */
+    private static FileChannel open(
+	String file, StandardOpenOption ... options
+    ) {
+	try {
+	    return FileChannel.open( Path.of( file ), options );
+	} catch (IOException e) {
+	    Error.fatal( "could not open trace " + file + ": " + e.getMessage() );
+	    return null; // never happens, fatal does not return
+	}
+    }
+
+    /** Make sure the window has room for some bytes, sliding it if not
+     *  <p>When reading, the window never extends past the end of the file.
+     *  @param n  the number of bytes needed
+     */
+    private void room( int n ) {
+	if ((buffer != null) && (buffer.remaining() >= n)) return;
+	try {
+	    if (buffer != null) base = base + buffer.position();
+	    long size = window;
+	    if (mode == FileChannel.MapMode.READ_ONLY) {
+		size = Math.min( size, channel.size() - base );
+	    }
+	    buffer = channel.map( mode, base, size );
+	} catch (IOException e) {
+	    Error.fatal( "trace: " + e.getMessage() );
+	}
+    }
+
+    /** Record an event, after it has been simulated
+     *  @param time  the time of the event
+     *  @param kind  the kind of event
+     *  @param subject  the id of the person involved, if any
+     */
+    void record( long time, EventKind kind, int subject ) {
+	if (kind == EventKind.transmit) return; // the infection is recorded
+	int person = -1;
+	int place = -1;
+	if ((kind != EventKind.report) && (kind != EventKind.sync)) {
+	    person = subject;
+	    place = ctx.allPeople.get( subject ).location();
+	}
+	room( recordSize );
+	buffer.putLong( time );
+	buffer.put( (byte)kind.ordinal() );
+	buffer.putInt( person );
+	buffer.putInt( place );
+	records = records + 1;
+    }
+
+    /** Finish the trace, trimming the file to what was written
+     *  <p>This appends the state of each place and fills in the header.
+     */
+    void close() {
+	for (Place p: ctx.allPlaces) {
+	    room( 2 * Integer.BYTES );
+	    buffer.putInt( p.contageousCount() );
+	    buffer.putInt( p.occupantCount() );
+	}
+	try {
+	    long size = base + buffer.position();
+	    buffer.force();
+	    buffer = null;
+	    channel.truncate( size );
+	    channel.write(
+		ByteBuffer.allocate( Long.BYTES ).putLong( 0, records ),
+		countOffset
+	    );
+	    channel.close();
+	} catch (IOException e) {
+	    Error.fatal( "trace: " + e.getMessage() );
+	}
+    }
+
+    /** Replay a trace, printing the daily reports of the traced run
+     *  <p>The output is the same as the traced simulation printed.
+     *  @param file  the name of the trace file
+     *  @param out  where to print the reports
+     */
+    static void replay( String file, PrintStream out ) {
+	EventTrace t = new EventTrace( file );
+	t.replay( out );
+    }
+
+    /** Replay this trace
+     *  @param out  where to print the reports
+     */
+    private void replay( PrintStream out ) {
+	final EventKind[] kinds = EventKind.values();
+
+	room( headerSize );
+	if ((buffer.getInt() != magic) || (buffer.getInt() != version)) {
+	    Error.fatal( "not an event trace" );
+	}
+
+	// the state of each place
+	final int[] contageous = new int[buffer.getInt()];
+	final int[] occupants = new int[contageous.length];
+
+	// the state of each person
+	final int[] location = new int[buffer.getInt()];
+	final int[] state = new int[location.length];
+	final boolean[] present = new boolean[location.length];
+
+	final long count = buffer.getLong();
+
+	final int[] population = new int[Person.diseaseStateCount];
+
+	for (int i = 0; i < contageous.length; i++) {
+	    room( Integer.BYTES );
+	    contageous[i] = buffer.getInt();
+	}
+	for (int i = 0; i < location.length; i++) {
+	    room( Integer.BYTES + 1 );
+	    location[i] = buffer.getInt();
+	    state[i] = buffer.get();
+	    population[state[i]]++;
+	    present[i] = location[i] >= 0;
+	    if (present[i]) occupants[location[i]]++;
+	}
+
+	Person.headline( out );
+	for (long r = 0; r < count; r++) {
+	    room( recordSize );
+	    final long time = buffer.getLong();
+	    final EventKind kind = kinds[buffer.get()];
+	    final int p = buffer.getInt();
+	    final int place = buffer.getInt();
+
+	    switch (kind) {
+	    case report:
+		Person.report( out, time, population );
+		break;
+	    case sync:
+		break;
+	    case go:
+	    case goHome:
+		if ((place != location[p]) || !present[p]) {
+		    final int c = Person.isContageous( state[p] ) ? 1 : 0;
+		    if (present[p]) {
+			occupants[location[p]]--;
+			contageous[location[p]] -= c;
+		    }
+		    location[p] = place;
+		    present[p] = true;
+		    occupants[place]++;
+		    contageous[place] += c;
+		}
+		break;
+	    default: // changes of disease state
+		final int s = Person.stateAfter( kind, state[p] );
+		final int c = Person.contageonChange( kind, state[p] );
+		population[state[p]]--;
+		state[p] = s;
+		population[s]++;
+		if (location[p] >= 0) contageous[location[p]] += c;
+		if ((kind == EventKind.die) && present[p]) {
+		    occupants[location[p]]--;
+		    present[p] = false;
+		}
+	    }
+	}
+	out.flush();
+
+	// check the places against how the simulation left them
+	for (int i = 0; i < contageous.length; i++) {
+	    room( 2 * Integer.BYTES );
+	    if ((buffer.getInt() != contageous[i])
+	    ||  (buffer.getInt() != occupants[i])) {
+		Error.warn( "trace replay disagrees about place " + i );
+	    }
+	}
+	Error.exitIfWarnings( "replay failed" );
+    }
+}
@@ -0,0 +1,56 @@
+// FastForwardTest.java
+
+/** Checks that fast-forward gives the same epidemics as simulating moves
+ *  <p>With <code>-fastforward</code>, moves are skipped while nobody is
+ *  contageous, and when someone becomes contageous everyone is put back
+ *  where their schedules say, drawing afresh whether they took each trip;
+ *  so for a given seed the run differs from one without.  Over many seeds,
+ *  though, the final size of the epidemic must have the same distribution
+ *  either way.  This is checked on a town, where people go out by day,
+ *  and on a night shift, where the one infected at first is contageous
+ *  only for a few hours after midnight, part way through a visit that
+ *  began the day before.  Put anywhere else, they infect nobody.
+ *  <p>Usage: java -ea FastForwardTest, which says what it checked and
+ *  exits with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see Person#resumeMoves
+ */
+class FastForwardTest {
+    private static final int seeds = 300; // runs each way
+
+    // everyone alone at home but for a shift from 10 PM to 6 AM; the one
+    // infected is contageous from 2 AM on the second day for 2.4 hours
+    private static final String night =
+	"population 10; infected 1;\n"
+	+ "place home 1 0 0;\n"
+	+ "place plant 10 0 0.02;\n"
+	+ "role nightshift 1 home plant (22-30);\n"
+	+ "latent 1.0833 0; asymptomatic 0.1 0 1.0;\n"
+	+ "symptomatic 2 0 0.9; bedridden 2 0 0.9;\n"
+	+ "end 6;\n";
+
+    /** Check one model
+     *  @param name  the name of the model, for the report
+     *  @param file  the model
+     */
+    private static void check( String name, String file ) {
+	final double[] moving = TestRun.finalSizes(
+	    file, 0, seeds, new String[] {}
+	);
+	// seeds not used for the other runs, so the samples are independent
+	final double[] skipping = TestRun.finalSizes(
+	    file, seeds, seeds, new String[] { "-fastforward" }
+	);
+	TestRun.sameDistribution( name + " final size, with and without "
+	    + "-fastforward", moving, skipping
+	);
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	check( "town", TestRun.model( TestRun.town( 60 ) ) );
+	check( "night shift", TestRun.model( night ) );
+    }
+}
@@ -0,0 +1,192 @@
+// HeapEventSet.java
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/** Pending event set implemented as an indexed binary heap
+ *  <p>Each pending event knows its slot in the heap, so cancel and
+ *  reschedule cost O(log n) and need not search for the event.
+ *  Simultaneous events are taken out together, see pollSimultaneous.
+ *  @version Oct. 17, 2026 simultaneous events taken out together
+ *  @see PendingEventSet
+ */
+class HeapEventSet implements PendingEventSet {
+    private Simulator.RealEvent[] heap = new Simulator.RealEvent[64];
+    private int count = 0; // the number of pending events
+
+    // staging for pollSimultaneous, the slots and events due now
+    private int[] due = new int[64];
+    private Simulator.RealEvent[] taken = new Simulator.RealEvent[64];
+    private static final Comparator<Simulator.RealEvent> order =
+	(a, b) -> a.before( b ) ? -1 : (b.before( a ) ? 1 : 0);
+
+    /** Put an event in a heap slot and tell the event where it is
+     *  @param e  the event
+     *  @param i  the slot
+     */
+    private void place( Simulator.RealEvent e, int i ) {
+	heap[i] = e;
+	e.slot = i;
+    }
+
+    /** Move an event toward the root of the heap until it is in order
+     *  @param e  the event
+     *  @param i  the slot to start from, its current content is ignored
+     */
+    private void siftUp( Simulator.RealEvent e, int i ) {
+	while (i > 0) {
+	    int parent = (i - 1) >>> 1;
+	    Simulator.RealEvent p = heap[parent];
+	    if (!e.before( p )) break;
+	    place( p, i );
+	    i = parent;
+	}
+	place( e, i );
+    }
+
+    /** Move an event away from the root of the heap until it is in order
+     *  @param e  the event
+     *  @param i  the slot to start from, its current content is ignored
+     */
+    private void siftDown( Simulator.RealEvent e, int i ) {
+	int half = count >>> 1; // slots at or above this are leaves
+	while (i < half) {
+	    int child = (i << 1) + 1;
+	    Simulator.RealEvent c = heap[child];
+	    int right = child + 1;
+	    if ((right < count) && heap[right].before( c )) {
+		child = right;
+		c = heap[child];
+	    }
+	    if (!c.before( e )) break;
+	    place( c, i );
+	    i = child;
+	}
+	place( e, i );
+    }
+
+    /** Remove the event in some slot of the heap
+     *  @param i  the slot
+     */
+    private void removeAt( int i ) {
+	Simulator.RealEvent gone = heap[i];
+	count = count - 1;
+	Simulator.RealEvent last = heap[count];
+	heap[count] = null;
+	if (i != count) {
+	    siftDown( last, i );
+	    if (last.slot == i) siftUp( last, i );
+	}
+	gone.slot = -1;
+    }
+
+    public void add( Simulator.RealEvent e ) {
+	if (count == heap.length) heap = Arrays.copyOf( heap, count * 2 );
+	count = count + 1;
+	siftUp( e, count - 1 );
+    }
+
+    public boolean remove( Simulator.RealEvent e ) {
+	if (e.slot < 0) return false;
+	removeAt( e.slot );
+	return true;
+    }
+
+    public Simulator.RealEvent poll() {
+	if (count == 0) return null;
+	Simulator.RealEvent e = heap[0];
+	removeAt( 0 );
+	return e;
+    }
+
+    /** Remove all the events simultaneous with the earliest event
+     *  <p>No event is earlier than its parent, so those events are a subtree
+     *  holding the root, found by walking down from it until later events
+     *  are met.  They are taken out in one pass, not polled one at a time:
+     *  if there are few, each hole is filled, deepest first, by the last
+     *  event in the heap, which need only sift down, since every event left
+     *  is later than all those taken; if there are many, the events left
+     *  are packed and the heap rebuilt from the bottom up, in O(n).
+     *  @param l  the list to which the events are added, in order
+     *  @return the number of events removed, zero if the set is empty
+     */
+    public int pollSimultaneous( EventList l ) {
+	if (count == 0) return 0;
+	final long t = heap[0].time;
+
+	// find them, in order of slot, as each is in a slot after its parent
+	int n = 1;
+	due[0] = 0;
+	for (int j = 0; j < n; j++) {
+	    final int child = (due[j] << 1) + 1;
+	    for (int c = child; (c <= child + 1) && (c < count); c++) {
+		if (heap[c].time != t) continue;
+		if (n == due.length) due = Arrays.copyOf( due, n * 2 );
+		due[n] = c;
+		n = n + 1;
+	    }
+	}
+	if (n > taken.length) taken = Arrays.copyOf( taken, due.length );
+	for (int j = 0; j < n; j++) {
+	    taken[j] = heap[due[j]];
+	    taken[j].slot = -1;
+	}
+
+	// take them out
+	final int depth = 32 - Integer.numberOfLeadingZeros( count );
+	if ((long)n * depth > count) { // cheaper to rebuild the heap
+	    int m = 0;
+	    for (int i = 0; i < count; i++) {
+		if (heap[i].slot >= 0) {
+		    heap[m] = heap[i];
+		    m = m + 1;
+		}
+	    }
+	    Arrays.fill( heap, m, count, null );
+	    count = m;
+	    for (int i = (count >>> 1) - 1; i >= 0; i--) siftDown( heap[i], i );
+	    for (int i = count >>> 1; i < count; i++) heap[i].slot = i;
+	} else {
+	    for (int j = n - 1; j >= 0; j--) {
+		final int i = due[j];
+		count = count - 1;
+		final Simulator.RealEvent last = heap[count];
+		heap[count] = null;
+		if (i != count) siftDown( last, i );
+	    }
+	}
+
+	// hand them over in order
+	Arrays.sort( taken, 0, n, order );
+	for (int j = 0; j < n; j++) {
+	    l.append( taken[j] );
+	    taken[j] = null;
+	}
+	return n;
+    }
+
+    public Simulator.RealEvent peek() {
+	return heap[0];
+    }
+
+    public int size() {
+	return count;
+    }
+
+    public void forEach( Consumer<Simulator.RealEvent> action ) {
+	for (int i = 0; i < count; i++) action.accept( heap[i] );
+    }
+
+    public boolean reschedule( Simulator.RealEvent e, long t ) {
+	if (e.slot < 0) return false;
+	long old = e.time;
+	e.time = t;
+	if (t < old) {
+	    siftUp( e, e.slot );
+	} else {
+	    siftDown( e, e.slot );
+	}
+	return true;
+    }
+}
@@ -4,17 +4,15 @@
  * Statistical Description of the disease progress
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
+ * @version Oct. 17, 2026 durations in ticks, drawn from a given stream
  * @see MyRandom
  * @see MyScanner
  */
 public class InfectionRule {
-	private final double median; // median of the distribution
+	private final double median; // median of the distribution, in ticks
 	private final double sigma; // sigma of the distribution
 	private final double recovery; // recovery probability
 
-	private static final MyRandom rand = MyRandom.stream();
-
 	/**
 	 * construct a new InfectionRule
 	 * 
@@ -53,18 +51,20 @@ public class InfectionRule {
 	/**
 	 * Toss the dice to see if someone recovers under the terms of this rule
 	 * 
+	 * @param rand -- the source of randomness of the simulation involved
 	 * @return true if recovers, false if not
 	 */
-	public boolean recover() {
+	public boolean recover(MyRandom rand) {
 		return rand.nextFloat() <= recovery;
 	}
 
 	/**
 	 * Toss the dice to see how long this disease state lasts under this rule
 	 * 
-	 * @return the time until the next change of disease state
+	 * @param rand -- the source of randomness of the simulation involved
+	 * @return the time until the next change of disease state, in ticks
 	 */
-	public double duration() {
-		return rand.nextLogNormal(median, sigma);
+	public long duration(MyRandom rand) {
+		return Time.ticks(rand.nextLogNormal(median, sigma));
 	}
 }
\ No newline at end of file
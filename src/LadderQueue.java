@@ -0,0 +1,205 @@
+// LadderQueue.java
+
+import java.util.function.Consumer;
+
+/** Pending event set implemented as a ladder queue
+ *  <p>This follows the ladder queue of W. T. Tang, R. S. M. Goh and
+ *  I. L.-J. Thng (ACM TOMACS 15, 2, Apr. 2005).  Events far in the future
+ *  sit unsorted in the top list.  When the near future runs dry, the top
+ *  is spread over a rung of buckets, crowded buckets are spread over finer
+ *  rungs below, and only small buckets are ever sorted, into the bottom
+ *  list from which events are taken.  Add and poll take O(1) amortized
+ *  time for most distributions of event times.
+ *  @version Oct. 16, 2026
+ *  @see PendingEventSet
+ */
+class LadderQueue implements PendingEventSet {
+    private static final int threshold = 50; // bucket size worth spreading
+    private static final int maxRungs = 8;   // limit on the ladder height
+
+    // one rung of the ladder
+    private static class Rung {
+	EventList[] buckets = new EventList[0];
+	int size;       // the number of buckets in use
+	long start;     // the time at which bucket 0 starts
+	long width;     // the time span of each bucket, > 0
+	int cur;        // the first bucket that may hold events
+
+	/** Prepare this rung for use, reusing the storage it had
+	 *  @param n  the number of buckets needed
+	 *  @param s  the start time of the rung
+	 *  @param w  the width of each bucket
+	 */
+	void setup( int n, long s, long w ) {
+	    if (buckets.length < n) {
+		EventList[] b = new EventList[Math.max( n, 2 * buckets.length )];
+		System.arraycopy( buckets, 0, b, 0, buckets.length );
+		for (int i = buckets.length; i < b.length; i++) {
+		    b[i] = new EventList();
+		}
+		buckets = b;
+	    }
+	    size = n;
+	    start = s;
+	    width = w;
+	    cur = 0;
+	}
+
+	/** @return the start time of the current bucket
+	 */
+	long curStart() {
+	    return start + cur * width;
+	}
+
+	/** Put an event in the right bucket of this rung
+	 *  @param e  the event
+	 */
+	void add( Simulator.RealEvent e ) {
+	    long i = (e.time - start) / width;
+	    if (i >= size) i = size - 1;
+	    buckets[(int)i].append( e );
+	}
+    }
+
+    private final EventList top = new EventList(); // the unsorted future
+    private long topMin;             // bounds on the times of events in top
+    private long topMax;
+    private long topStart = 0;       // events after this time go in top
+
+    private final Rung[] rungs = new Rung[maxRungs];
+    private int rungCount = 0;       // the number of rungs in use
+
+    private final EventList bottom = new EventList(); // sorted, due soonest
+
+    private int count = 0;           // the number of pending events
+
+    LadderQueue() {
+	for (int i = 0; i < maxRungs; i++) rungs[i] = new Rung();
+    }
+
+    public void add( Simulator.RealEvent e ) {
+	count = count + 1;
+	if (e.time > topStart) {
+	    if (top.count == 0) {
+		topMin = e.time;
+		topMax = e.time;
+	    } else if (e.time < topMin) {
+		topMin = e.time;
+	    } else if (e.time > topMax) {
+		topMax = e.time;
+	    }
+	    top.append( e );
+	    return;
+	}
+
+	// find the coarsest rung whose current bucket does not follow e
+	for (int x = 0; x < rungCount; x++) {
+	    if (e.time >= rungs[x].curStart()) {
+		rungs[x].add( e );
+		return;
+	    }
+	}
+	bottom.insert( e );
+    }
+
+    public boolean remove( Simulator.RealEvent e ) {
+	if (e.list == null) return false;
+	e.list.unlink( e );
+	count = count - 1;
+	return true;
+    }
+
+    /** Make sure the bottom holds the next events if there are any
+     */
+    private void refill() {
+	while (bottom.count == 0) {
+	    if (rungCount == 0) { // the ladder is empty, bring down the top
+		if (top.count == 0) return;
+		topStart = topMax;
+		if ((top.count <= threshold) || (topMax == topMin)) {
+		    bottom.takeAll( top );
+		    bottom.sort();
+		    return;
+		}
+		Rung r = rungs[0];
+		r.setup( top.count + 1, topMin,
+		    (topMax - topMin + top.count - 1) / top.count
+		);
+		rungCount = 1;
+		while (top.head != null) r.add( top.removeFirst() );
+	    }
+
+	    // find the first nonempty bucket on the lowest rung
+	    Rung r = rungs[rungCount - 1];
+	    while ((r.cur < r.size) && (r.buckets[r.cur].count == 0)) {
+		r.cur = r.cur + 1;
+	    }
+	    if (r.cur >= r.size) { // this rung is used up
+		rungCount = rungCount - 1;
+		continue;
+	    }
+	    EventList b = r.buckets[r.cur];
+	    long bStart = r.curStart();
+	    r.cur = r.cur + 1;
+
+	    if ((b.count > threshold) && (rungCount < maxRungs)
+	    &&  !simultaneous( b )) {
+		// crowded, so spread this bucket over a finer rung
+		Rung child = rungs[rungCount];
+		child.setup( threshold, bStart,
+		    (r.width + threshold - 1) / threshold
+		);
+		rungCount = rungCount + 1;
+		while (b.head != null) child.add( b.removeFirst() );
+	    } else {
+		bottom.takeAll( b );
+		bottom.sort();
+	    }
+	}
+    }
+
+    /** Are all the events in a list simultaneous?
+     *  <p>There is no point spreading such a list over a finer rung.
+     *  @param l  the list
+     *  @return true if they are
+     */
+    private static boolean simultaneous( EventList l ) {
+	for (Simulator.RealEvent e = l.head.next; e != null; e = e.next) {
+	    if (e.time != l.head.time) return false;
+	}
+	return true;
+    }
+
+    public Simulator.RealEvent poll() {
+	refill();
+	Simulator.RealEvent e = bottom.removeFirst();
+	if (e != null) count = count - 1;
+	return e;
+    }
+
+    public int pollSimultaneous( EventList l ) {
+	refill();
+	int n = l.takeSimultaneous( bottom ); // they are all in the bottom
+	count = count - n;
+	return n;
+    }
+
+    public Simulator.RealEvent peek() {
+	refill();
+	return bottom.head;
+    }
+
+    public int size() {
+	return count;
+    }
+
+    public void forEach( Consumer<Simulator.RealEvent> action ) {
+	top.forEach( action );
+	for (int r = 0; r < rungCount; r++) {
+	    for (int i = rungs[r].cur; i < rungs[r].size; i++) {
+		rungs[r].buckets[i].forEach( action );
+	    }
+	}
+	bottom.forEach( action );
+    }
+}
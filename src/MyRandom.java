@@ -3,34 +3,114 @@
 import java.util.Random;
 
 /**
- * Wrapper extending class Random, turning it into a singleton class
+ * Wrapper extending class Random with the distributions the model needs
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
- * @see Random Ideally, no user should ever create an instance of Random, all
- *      use this! Users can call MyRandom.stream.anyMethodOfRandom() (or of
- *      MyRandom) or MyRandom.stream().anyMethodOfRandom() Users can allocate
- *      MyRandom myStream = MyRandom.stream; or MyRandom myStream =
- *      MyRandom.stream(); No matter how they do it, they get the same stream
+ * @version Oct. 16, 2026 one stream per simulation instead of a singleton
+ * @see Random Each simulation owns one stream, in its SimulationContext, and
+ *      all randomness in that simulation must come from that stream. This
+ *      keeps independent simulations independent, even when they run at the
+ *      same time, and it makes a simulation with a given seed repeatable.
+ * @see SimulationContext The generator is that of class Random, but with its
+ *      state kept here, unsynchronized, so that it can be saved and restored.
  */
 public class MyRandom extends Random {
+
+	// the state of the generator, see Random; these have no initializers
+	// because Random's constructor sets them by calling setSeed
+	private long state;
+	private double nextNextGaussian;
+	private boolean haveNextNextGaussian;
+
 	/**
-	 * the only random number stream
+	 * construct a stream with an unpredictable seed
 	 */
-	public static final MyRandom stream = new MyRandom(); // the only stream;
-
-	// nobody can construct a MyRandom except the above line of code
-	private MyRandom() {
+	public MyRandom() {
 		super();
 	}
 
-	/*
-	 * alternative access to the only random number stream
+	/**
+	 * construct a stream with a given seed
+	 * 
+	 * @param seed -- the seed
+	 */
+	public MyRandom(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * construct a copy of a stream, in the same state
+	 * 
+	 * @param r -- the stream to copy
+	 */
+	public MyRandom(MyRandom r) {
+		super(0);
+		restore(r);
+	}
+
+	/**
+	 * put this stream back in the state of another
+	 * 
+	 * @param r -- the stream, typically a copy of this one made earlier
+	 */
+	public void restore(MyRandom r) {
+		state = r.state;
+		nextNextGaussian = r.nextNextGaussian;
+		haveNextNextGaussian = r.haveNextNextGaussian;
+	}
+
+	/**
+	 * write the state of this stream to a checkpoint
 	 * 
-	 * @return the only stream
+	 * @param c -- the checkpoint
 	 */
-	public static MyRandom stream() {
-		return stream;
+	void checkpoint(Checkpoint c) {
+		c.putLong(state);
+		c.putDouble(nextNextGaussian);
+		c.putByte(haveNextNextGaussian ? 1 : 0);
+	}
+
+	/**
+	 * put this stream back in the state saved in a checkpoint
+	 * 
+	 * @param c -- the checkpoint
+	 */
+	void restore(Checkpoint c) {
+		state = c.getLong();
+		nextNextGaussian = c.getDouble();
+		haveNextNextGaussian = c.getByte() != 0;
+	}
+
+	// the generator itself, exactly as in class Random
+
+	@Override
+	public void setSeed(long seed) {
+		state = (seed ^ 0x5DEECE66DL) & ((1L << 48) - 1);
+		haveNextNextGaussian = false;
+	}
+
+	@Override
+	protected int next(int bits) {
+		state = (state * 0x5DEECE66DL + 0xBL) & ((1L << 48) - 1);
+		return (int) (state >>> (48 - bits));
+	}
+
+	@Override
+	public double nextGaussian() {
+		if (haveNextNextGaussian) {
+			haveNextNextGaussian = false;
+			return nextNextGaussian;
+		}
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextNextGaussian = v2 * multiplier;
+		haveNextNextGaussian = true;
+		return v1 * multiplier;
 	}
 
 	// add distributions that weren't built in
@@ -45,6 +125,33 @@ public class MyRandom extends Random {
 		return mean * -Math.log(this.nextDouble());
 	}
 
+	/**
+	 * binomial distribution
+	 * 
+	 * @param n -- the number of trials
+	 * @param p -- the probability that each trial succeeds
+	 * @return the number of successes This skips from one success to the
+	 *         next by drawing the geometrically distributed number of trials
+	 *         between them, so it costs about n*p+1 draws, few when p is small.
+	 */
+	public int nextBinomial(int n, double p) {
+		if (p <= 0.0)
+			return 0;
+		if (p >= 1.0)
+			return n;
+		if (p > 0.5) // count the failures instead, there are fewer
+			return n - nextBinomial(n, 1.0 - p);
+		final double logq = Math.log1p(-p);
+		int successes = 0;
+		long trials = 0;
+		for (;;) {
+			trials = trials + 1 + (long) (Math.log(1.0 - this.nextDouble()) / logq);
+			if (trials > n)
+				return successes;
+			successes = successes + 1;
+		}
+	}
+
 	/**
 	 * log-normal distribution
 	 * 
@@ -7,7 +7,7 @@ import java.util.regex.Pattern;
  * Support for scanning input files with error reporting
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
+ * @version Oct. 17, 2026 numbers read in double precision too
  * @see Error
  * @see java.util.Scanner Ideally, this would be extend class Scanner, but class
  *      Scanner is final Therefore, this is a wrapper class around class Scanner
@@ -143,11 +143,34 @@ public class MyScanner {
 		}
 	}
 
+	/**
+	 * get the next number from the scanner in double precision or complain if
+	 * missing See floatPat for the details of what makes a float. Unlike
+	 * getNextFloat, the number is not rounded to a float, so 11.06 is read as
+	 * near to 11.06 as a double allows.
+	 * 
+	 * @param defalt      -- return value if there is no next number
+	 * @param errorMesage -- the message to complain with (lambda expression)
+	 * @return the next number or the defalt
+	 */
+	public double getNextDouble(double defalt, Message errorMessage) {
+		// skip the delimiter, if any, then the number, if any; get the latter
+		String text = sc.skip(delimPat).skip(floatPat).match().group();
+
+		if (text.isEmpty()) { // missing number
+			Error.warn(errorMessage.myString());
+			return defalt;
+		} else { // the number was present and it matches floatPat
+			return Double.parseDouble(text);
+		}
+	}
+
 	// patterns for use with the NextLiteral routines
 	public static final Pattern beginParen = Pattern.compile("\\(|");
 	public static final Pattern endParen = Pattern.compile("\\)|");
 	public static final Pattern dash = Pattern.compile("-|");
 	public static final Pattern semicolon = Pattern.compile(";|");
+	public static final Pattern leap = Pattern.compile("leap|");
 
 	/**
 	 * try to get the next literal from the scanner
@@ -0,0 +1,178 @@
+// Occupancy.java
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * How many person-hours are spent in each kind of place, and how many of
+ * them exposed, day by day
+ *
+ * A person is exposed while they are not contageous but someone else in the
+ * same place is. For each kind of place, this keeps how many people are in
+ * places of that kind and how many of them are exposed, with the time these
+ * last changed; at each change, the count times the time since is added to
+ * the integral for that kind. So keeping it costs a few stores for each
+ * arrival, departure and change of contageon, and nobody is counted by
+ * looking through the occupants of places.
+ *
+ * The integrals are kept in person-ticks, in longs, so they are exact, and
+ * they can be summed in any order. In a parallel simulation, each partition
+ * counts the changes in the places it owns, starting from zero, while the
+ * simulation in which the model was built keeps the counts as they were
+ * when it was split; the counts summed over all of these are the true
+ * counts, and so are the integrals.
+ *
+ * @version Oct. 16, 2026
+ * @see Place#counted, which tells this of each change
+ * @see Person#report, which reports and restarts the integrals each day
+ */
+class Occupancy {
+	private final List<PlaceKind> kinds; // the kinds of places, by index
+
+	// per kind of place, indexed like kinds
+	private int[] present = new int[0]; // people in places of the kind
+	private int[] exposed = new int[0]; // of them, exposed
+	private long[] since = new long[0]; // when the above last changed
+	private long[] occupancy = new long[0]; // person-ticks present today
+	private long[] exposure = new long[0]; // person-ticks exposed today
+
+	/**
+	 * Start keeping the occupancy of places in a simulation
+	 *
+	 * @param c -- the simulation
+	 */
+	Occupancy(SimulationContext c) {
+		kinds = c.allPlaceKinds;
+	}
+
+	/**
+	 * How many people are exposed in a place?
+	 *
+	 * @param n -- how many people are there
+	 * @param c -- how many of them are contageous
+	 * @return how many of them are exposed
+	 */
+	static int exposed(int n, int c) {
+		return (c > 0) ? n - c : 0;
+	}
+
+	/**
+	 * Make room for all the kinds of places, once they are all known
+	 */
+	private void grow() {
+		final int n = kinds.size();
+		present = Arrays.copyOf(present, n);
+		exposed = Arrays.copyOf(exposed, n);
+		since = Arrays.copyOf(since, n);
+		occupancy = Arrays.copyOf(occupancy, n);
+		exposure = Arrays.copyOf(exposure, n);
+	}
+
+	/**
+	 * Bring the integrals for a kind of place up to some time
+	 *
+	 * @param time -- the time
+	 * @param k    -- the index of the kind
+	 */
+	private void advance(long time, int k) {
+		final long dt = time - since[k];
+		occupancy[k] = occupancy[k] + present[k] * dt;
+		exposure[k] = exposure[k] + exposed[k] * dt;
+		since[k] = time;
+	}
+
+	/**
+	 * Note a change in the occupants of a place
+	 *
+	 * @param time -- when
+	 * @param k    -- the index of the kind of the place
+	 * @param dn   -- the change in the number of people there
+	 * @param de   -- the change in the number of them exposed
+	 */
+	void change(long time, int k, int dn, int de) {
+		if (k >= present.length)
+			grow();
+		advance(time, k);
+		present[k] = present[k] + dn;
+		exposed[k] = exposed[k] + de;
+	}
+
+	/**
+	 * Count again who is in each place, as after restoring a checkpoint
+	 *
+	 * @param store -- the state of the places
+	 * @param time  -- when the integrals start again, from zero
+	 */
+	void recount(PlaceStore store, long time) {
+		grow();
+		Arrays.fill(present, 0);
+		Arrays.fill(exposed, 0);
+		Arrays.fill(since, time);
+		Arrays.fill(occupancy, 0);
+		Arrays.fill(exposure, 0);
+		for (int i = 0; i < store.size; i++) {
+			final int k = store.kind[i];
+			present[k] = present[k] + store.count[i];
+			exposed[k] = exposed[k] + exposed(store.count[i], store.contageous[i]);
+		}
+	}
+
+	/**
+	 * Take the integrals of another simulation up to some time, restarting
+	 * its integrals from zero
+	 *
+	 * @param time -- the time
+	 * @param o    -- the occupancy of the other simulation
+	 * @see ParallelSimulator, which sums its partitions this way
+	 */
+	void gather(long time, Occupancy o) {
+		if (present.length < kinds.size())
+			grow();
+		if (o.present.length < kinds.size())
+			o.grow();
+		for (int k = 0; k < present.length; k++) {
+			o.advance(time, k);
+			occupancy[k] = occupancy[k] + o.occupancy[k];
+			exposure[k] = exposure[k] + o.exposure[k];
+			o.occupancy[k] = 0;
+			o.exposure[k] = 0;
+		}
+	}
+
+	/**
+	 * Print the names of the columns of the report, for the headline
+	 *
+	 * @param out -- where to print them
+	 */
+	void headline(PrintStream out) {
+		for (PlaceKind k : kinds) {
+			out.print(",");
+			out.print(k.name);
+			out.print(" hours,");
+			out.print(k.name);
+			out.print(" exposed hours");
+		}
+	}
+
+	/**
+	 * Print the person-hours since the last report, restarting the
+	 * integrals from zero
+	 *
+	 * @param out  -- where to print them
+	 * @param time -- the time of the report
+	 */
+	void report(PrintStream out, long time) {
+		if (present.length < kinds.size())
+			grow();
+		for (int k = 0; k < present.length; k++) {
+			advance(time, k);
+			out.print(",");
+			out.print(Double.toString((double) occupancy[k] / Time.hour));
+			out.print(",");
+			out.print(Double.toString((double) exposure[k] / Time.hour));
+			occupancy[k] = 0;
+			exposure[k] = 0;
+		}
+	}
+}
@@ -0,0 +1,162 @@
+// OccupancyTest.java
+
+/** Checks the person-hours reported by -occupancy
+ *  <p>In models where everybody follows a fixed schedule and disease runs
+ *  a fixed course, every day must report exactly the hours and exposed
+ *  hours these give, however the model is simulated, parallel simulation
+ *  included.  In a model where people move at random
+ *  and fall sick, the occupancy columns must leave the rest of the report
+ *  as it was; each day, the hours in all places together must be 24 for
+ *  each person alive at its end, and at most 24 for each alive at its
+ *  start; and exposed hours must be some but never more than the hours.
+ *  <p>Usage: java -ea OccupancyTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see Occupancy
+ */
+class OccupancyTest {
+    private static final int seeds = 5;
+    private static final int days = 40;
+    private static final double tolerance = 1e-6; // hours, for rounding
+
+    // 60 at home all day, 40 at work from 9 to 5; the one infected recovers
+    // before becoming contageous
+    private static final String commute =
+	"population 100; infected 1;\n"
+	+ "place home 10 0 0.01;\n"
+	+ "place work 10 0 0.01;\n"
+	+ "role homebody 60 home;\n"
+	+ "role worker 40 home work (9-17);\n"
+	+ "latent 2.0 0 1.0; asymptomatic 2 0;\n"
+	+ "symptomatic 2 0 0.9; bedridden 2 0 0.9;\n"
+	+ "end 5;\n";
+
+    // home and work hours and exposed hours, the same every day
+    private static final double[][] commuteHours = { { 2080, 0, 320, 0 } };
+
+    // 10 in one place, where nobody is infected; the one infected at first
+    // is contageous all through the second day, then recovers
+    private static final String ward =
+	"population 10; infected 1;\n"
+	+ "place ward 10 0 0;\n"
+	+ "role patient 1 ward;\n"
+	+ "latent 1.0 0; asymptomatic 1 0 1.0;\n"
+	+ "symptomatic 2 0 0.9; bedridden 2 0 0.9;\n"
+	+ "end 4;\n";
+
+    // hours and exposed hours on day 1, day 2 and from day 3 on
+    private static final double[][] wardHours = {
+	{ 240, 0 }, { 240, 9 * 24 }, { 240, 0 }
+    };
+
+    // the ways of simulating the models with fixed hours
+    private static final String[][] options = {
+	{}, { "-aggregate" }, { "-adaptive" }, { "-threads", "3" }
+    };
+
+    /** Parse the lines of a report
+     *  @param report  the output of a run
+     *  @return the fields of each line but the heading
+     */
+    private static double[][] parse( String report ) {
+	final String[] lines = report.trim().split( "\n" );
+	final double[][] v = new double[lines.length - 1][];
+	for (int i = 1; i < lines.length; i++) {
+	    final String[] f = lines[i].split( "," );
+	    v[i - 1] = new double[f.length];
+	    for (int j = 0; j < f.length; j++) {
+		v[i - 1][j] = Double.parseDouble( f[j] );
+	    }
+	}
+	return v;
+    }
+
+    /** Check a model with fixed hours, run one way
+     *  @param name  the name of the model, for the report
+     *  @param file  the model
+     *  @param hours  the occupancy columns of the report, by day from day
+     *                one, the last row repeating to the end
+     *  @param o  the options
+     */
+    private static void checkFixed(
+	String name, String file, double[][] hours, String[] o
+    ) {
+	final String what = name + ((o.length == 0) ? "" : " ")
+	    + String.join( " ", o );
+	final double[][] v = parse( TestRun.run( TestRun.line( file, 0, o,
+	    "-occupancy"
+	) ) );
+	for (int d = 1; d < v.length; d++) { // the first line is at time 0
+	    final double[] h = hours[Math.min( d, hours.length ) - 1];
+	    for (int k = 0; k < h.length; k++) {
+		if (Math.abs( v[d][8 + k] - h[k] ) > tolerance) {
+		    Error.fatal( what + ": day " + d + " column " + (9 + k)
+			+ " has " + v[d][8 + k] + " hours, not " + h[k]
+		    );
+		}
+	    }
+	}
+    }
+
+    /** Check the town model for one seed
+     *  @param file  the model
+     *  @param s  the seed
+     */
+    private static void checkTown( String file, int s ) {
+	final String what = "town seed " + s;
+	final String[] o = {};
+	final double[][] plain = parse( TestRun.run( TestRun.line( file, s, o ) ) );
+	final double[][] v = parse( TestRun.run( TestRun.line( file, s, o,
+	    "-occupancy"
+	) ) );
+	if (v.length != plain.length) Error.fatal( what + ": days differ" );
+	double exposure = 0.0;
+	for (int d = 0; d < v.length; d++) {
+	    for (int j = 0; j < plain[d].length; j++) {
+		if (v[d][j] != plain[d][j]) {
+		    Error.fatal( what + ": -occupancy changed the run" );
+		}
+	    }
+	    if (d == 0) continue; // nobody has been anywhere yet
+
+	    double hours = 0.0;
+	    for (int j = plain[d].length; j < v[d].length; j = j + 2) {
+		if ((v[d][j + 1] < 0) || (v[d][j + 1] > v[d][j])) {
+		    Error.fatal( what + ": day " + d + " column " + (j + 2)
+			+ " has more exposed hours than hours"
+		    );
+		}
+		hours = hours + v[d][j];
+		exposure = exposure + v[d][j + 1];
+	    }
+	    double population = 0.0; // in all disease states
+	    for (int j = 1; j < 8; j++) population = population + v[d][j];
+	    final double alive = population - v[d][7]; // at the end of the day
+	    final double lived = population - v[d - 1][7]; // at the start
+	    if ((hours < 24 * alive - tolerance)
+	    ||  (hours > 24 * lived + tolerance)) {
+		Error.fatal( what + ": day " + d + " has " + hours + " hours"
+		    + " for " + alive + " to " + lived + " people"
+		);
+	    }
+	}
+	if (exposure <= 0.0) Error.fatal( what + ": nobody was ever exposed" );
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String commuting = TestRun.model( commute );
+	final String sick = TestRun.model( ward );
+	for (String[] o: options) {
+	    checkFixed( "commute", commuting, commuteHours, o );
+	    checkFixed( "ward", sick, wardHours, o );
+	}
+	System.out.println( "fixed hours: reported exactly" );
+
+	final String town = TestRun.model( TestRun.town( days ) );
+	for (int s = 0; s < seeds; s++) checkTown( town, s );
+	System.out.println( "town: hours add up, exposed hours within them" );
+    }
+}
@@ -0,0 +1,480 @@
+// ParallelSimulator.java
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/** Conservative parallel simulation of one model, partitioned by place
+ *  <p>Each place is owned by one partition, a <code>SimulationContext</code>
+ *  with its own pending event set and random number stream, and each person
+ *  belongs to the partition owning the place where they are.  People move
+ *  only at the start and end times of schedules, so between consecutive
+ *  move times no partition can affect another; that is the lookahead.
+ *  <p>In each step, every partition, in parallel, takes in the people who
+ *  moved to its places at the end of the last step, in an order that does
+ *  not depend on the partitioning, finishes that time, and runs on up to
+ *  the next move time, stopping once it has simulated the moves.  People
+ *  bound for places in other partitions emigrate there, carrying their
+ *  pending events with them, to be taken in during the next step.  So the
+ *  partitions wait for each other once per step, and only the daily report
+ *  is done by one thread.
+ *  <p>Places are partitioned so that people who visit several places mostly
+ *  find them all in one partition, and rarely migrate.
+ *  <p>Because each partition draws from its own random numbers, results
+ *  agree with sequential simulation in distribution, not run for run.
+ *  @version Oct. 17, 2026 checked against sequential runs by ParallelTest
+ *  @see Person#travelTo
+ *  @see Role#moveTimes
+ */
+class ParallelSimulator {
+    private final SimulationContext model; // where the model was built
+    private final Partition[] parts;
+    private final long[] steps; // times of day to synchronize, sorted
+    private final int[] owner;  // the partition owning each place, by id
+
+    private static final int refinements = 8; // most passes, see localize
+
+    // statistics, timed by the processor time of each thread, so threads
+    // sharing a processor do not seem to take longer
+    private static final ThreadMXBean clock = ManagementFactory.getThreadMXBean();
+    private long rounds = 0; // steps, each ending with all partitions waiting
+    private long span = 0;   // sum over steps of the longest partition, in ns
+
+    /** One partition, and the people moving into it
+     */
+    private class Partition {
+	final int id;
+	final SimulationContext ctx;
+
+	// people leaving for each partition, by the parity of the step
+	private final ArrayList<ArrayList<Person>> leaving = new ArrayList<>();
+	// people arriving, gathered from all partitions, see arrive
+	private final ArrayList<Person> arriving = new ArrayList<>();
+
+	// the state of the population at the last midnight, see census
+	private final int[] population = new int[Person.diseaseStateCount];
+	private final Occupancy occupancy;
+
+	// statistics
+	long arrivals = 0;   // people who arrived at places here
+	long migrants = 0;   // of them, people from other partitions
+	long busy = 0;       // processor time spent simulating, in ns
+	private long last = 0; // processor time spent in the last step, in ns
+
+	Partition( int i, SimulationContext c ) {
+	    id = i;
+	    ctx = c;
+	    for (int j = 0; j < 2 * parts.length; j++) {
+		leaving.add( new ArrayList<>() );
+	    }
+	    occupancy = (model.occupancy == null) ? null : new Occupancy( model );
+	}
+
+	/** Take in the people who moved here at the end of the last step
+	 *  @param time  when they arrive
+	 *  @param parity  the parity of the last step
+	 */
+	private void arrive( long time, int parity ) {
+	    for (Partition from: parts) {
+		final ArrayList<Person> l = from.leaving.get(
+		    parity * parts.length + id
+		);
+		arriving.addAll( l );
+		l.clear();
+	    }
+	    arriving.sort( (Person a, Person b) -> a.rank - b.rank );
+	    for (Person p: arriving) {
+		if (p.ctx != ctx) migrants = migrants + 1;
+		p.arriveFromTransit( time );
+	    }
+	    arrivals = arrivals + arriving.size();
+	    arriving.clear();
+	}
+
+	/** Run up to and including the moves at some time, and send the
+	 *  people who moved on their way
+	 *  @param time  the time
+	 *  @param parity  the parity of this step
+	 */
+	private void leave( long time, int parity ) {
+	    ctx.simulator.runUntil( time );
+	    for (Person p: ctx.outbox) {
+		final int to = owner[p.location()];
+		if (to != id) p.emigrate();
+		leaving.get( parity * parts.length + to ).add( p );
+	    }
+	    ctx.outbox.clear();
+	}
+
+	/** Take one step
+	 *  @param time  when the last step ended, where this one starts
+	 *  @param next  when this step ends, or -1 to end with time
+	 *  @param parity  the parity of the last step
+	 */
+	void step( long time, long next, int parity ) {
+	    final long start = clock.getCurrentThreadCpuTime();
+	    arrive( time, parity );
+	    ctx.simulator.runUntil( time );
+	    if (time % Time.day == 0) census( time );
+	    if (next >= 0) leave( next, 1 - parity );
+	    last = clock.getCurrentThreadCpuTime() - start;
+	    busy = busy + last;
+	}
+
+	/** Record the state of this partition at midnight, for the report
+	 *  @param time  the time of the report
+	 */
+	private void census( long time ) {
+	    System.arraycopy( ctx.population, 0, population, 0, population.length );
+	    if (occupancy != null) occupancy.gather( time, ctx.occupancy );
+	}
+    }
+
+    /** Partition a model built sequentially
+     *  <p>From here on, the model's own simulator is not used.
+     *  @param m  the simulation in which the model was built
+     *  @param n  the number of partitions
+     *  @param sets  makes the pending event set for each partition
+     */
+    public ParallelSimulator(
+	SimulationContext m, int n, Supplier<PendingEventSet> sets
+    ) {
+	model = m;
+	SimulationContext[] contexts = partition( model, n, sets );
+	steps = syncTimes( model, contexts );
+
+	parts = new Partition[n];
+	for (int i = 0; i < n; i++) parts[i] = new Partition( i, contexts[i] );
+	owner = new int[model.allPlaces.size()];
+	for (int q = 0; q < owner.length; q++) {
+	    final SimulationContext o = model.allPlaces.get( q ).owner;
+	    while (contexts[owner[q]] != o) owner[q] = owner[q] + 1;
+	}
+    }
+
+    /** Split a model built sequentially into partitions
+     *  <p>Places are dealt out to partitions by <code>localize</code>, and
+     *  each person, with their pending events, goes to the partition that
+     *  owns their home.  Each person is also ranked at random, to order
+     *  simultaneous arrivals.
+     *  @param model  the simulation in which the model was built
+     *  @param n  the number of partitions
+     *  @param sets  makes the pending event set for each partition
+     *  @return the partitions
+     */
+    static SimulationContext[] partition(
+	SimulationContext model, int n, Supplier<PendingEventSet> sets
+    ) {
+	SimulationContext[] parts = new SimulationContext[n];
+	model.placeStore.seal(); // from here on, partitions share it
+	for (int i = 0; i < n; i++) {
+	    parts[i] = new SimulationContext(
+		model, new MyRandom( model.rand.nextLong() )
+	    );
+	    parts[i].simulator.useEventSet( sets.get() );
+	    SimulatorStatistics stats = model.simulator.statistics();
+	    if (stats != null) parts[i].simulator.useStatistics( stats.part() );
+	}
+
+	final int[] part = localize( model, n );
+	for (int i = 0; i < model.allPlaces.size(); i++) {
+	    model.allPlaces.get( i ).owner = parts[part[i]];
+	}
+
+	// simultaneous arrivals are in random order, as in a sequential run
+	ArrayList<Person> people = new ArrayList<>( model.allPeople );
+	Collections.shuffle( people, model.rand );
+	for (int i = 0; i < people.size(); i++) {
+	    Person p = people.get( i );
+	    p.rank = i;
+	    p.migrate();
+	}
+	return parts;
+    }
+
+    /** Deal out places to partitions, keeping the places each person
+     *  visits together where possible
+     *  <p>Each place weighs as much as the number of people who visit it,
+     *  and places are dealt out in breadth-first order through the people
+     *  who visit them, from home to work and on to the homes of coworkers.
+     *  Each place goes to the partition already holding the most places
+     *  that share visitors with it, discounted as that partition fills;
+     *  if none does, it goes to the partition holding the least.  Places
+     *  heavier than a partition's share, a stadium, say, cannot be kept
+     *  with all their visitors; they are not followed or counted as
+     *  sharing, and go to the partition holding the least.
+     *  <p>Dealing places out this way strands places next to a partition
+     *  that filled up, so then each place in turn moves to the partition
+     *  holding the most places that share visitors with it, if that keeps
+     *  both partitions within 5% of their share, until none moves.
+     *  <p>Each pass costs time proportional to the sum, over people, of
+     *  the square of the number of places they visit; a few passes are
+     *  enough.  No random numbers are used.
+     *  @param model  the simulation in which the model was built
+     *  @param n  the number of partitions
+     *  @return the partition of each place, indexed by place id
+     */
+    private static int[] localize( SimulationContext model, int n ) {
+	final int places = model.allPlaces.size();
+	final int people = model.allPeople.size();
+
+	// people to places and back, both as compressed rows
+	final int[] visits = new int[people + 1];
+	for (int r = 0; r < people; r++) {
+	    visits[r + 1] = visits[r] + model.allPeople.get( r ).placeCount();
+	}
+	final int[] visited = new int[visits[people]];
+	final int[] visitors = new int[places + 1];
+	for (int r = 0; r < people; r++) {
+	    final Person p = model.allPeople.get( r );
+	    for (int i = 0; i < p.placeCount(); i++) {
+		visited[visits[r] + i] = p.placeId( i );
+		visitors[p.placeId( i ) + 1] = visitors[p.placeId( i ) + 1] + 1;
+	    }
+	}
+	for (int q = 0; q < places; q++) {
+	    visitors[q + 1] = visitors[q + 1] + visitors[q];
+	}
+	final int[] visitor = new int[visits[people]];
+	final int[] fill = Arrays.copyOf( visitors, places );
+	for (int r = 0; r < people; r++) {
+	    for (int k = visits[r]; k < visits[r + 1]; k++) {
+		visitor[fill[visited[k]]] = r;
+		fill[visited[k]] = fill[visited[k]] + 1;
+	    }
+	}
+
+	// the weight of a place, and what counts as too heavy to follow
+	long total = 0;
+	for (int q = 0; q < places; q++) total = total + weight( visitors, q );
+	final long share = (total + n - 1) / n;
+	final double capacity = 1.05 * share;
+
+	final int[] part = new int[places];
+	Arrays.fill( part, -1 );
+	final long[] load = new long[n];
+	final double[] score = new double[n];
+
+	// breadth-first through places, each person followed once
+	final int[] queue = new int[places];
+	final boolean[] queued = new boolean[places];
+	final boolean[] followed = new boolean[people];
+	int head = 0;
+	int tail = 0;
+	for (int root = 0; root < places; root++) {
+	    if (queued[root]) continue;
+	    queue[tail] = root;
+	    tail = tail + 1;
+	    queued[root] = true;
+	    while (head < tail) {
+		final int q = queue[head];
+		head = head + 1;
+		final boolean hub = weight( visitors, q ) > share;
+
+		if (hub) {
+		    Arrays.fill( score, 0.0 );
+		} else {
+		    tally( q, part, visits, visited, visitors, visitor, share, score );
+		}
+		int best = 0;
+		for (int i = 1; i < n; i++) if (load[i] < load[best]) best = i;
+		double most = 0.0;
+		for (int i = 0; i < n; i++) {
+		    final double s = score[i] * (1.0 - load[i] / capacity);
+		    if (s > most) {
+			most = s;
+			best = i;
+		    }
+		}
+		part[q] = best;
+		load[best] = load[best] + weight( visitors, q );
+
+		if (!hub) for (int k = visitors[q]; k < visitors[q + 1]; k++) {
+		    final int r = visitor[k];
+		    if (followed[r]) continue;
+		    followed[r] = true;
+		    for (int j = visits[r]; j < visits[r + 1]; j++) {
+			final int o = visited[j];
+			if (!queued[o]) {
+			    queue[tail] = o;
+			    tail = tail + 1;
+			    queued[o] = true;
+			}
+		    }
+		}
+	    }
+	}
+
+	// then move places to where their visitors go, while that helps
+	final double floor = 0.95 * share;
+	for (int round = 0; round < refinements; round++) {
+	    int moved = 0;
+	    for (int q = 0; q < places; q++) {
+		final long w = weight( visitors, q );
+		if (w > share) continue;
+		tally( q, part, visits, visited, visitors, visitor, share, score );
+		final int from = part[q];
+		if (load[from] - w < floor) continue;
+		int best = from;
+		for (int i = 0; i < n; i++) {
+		    if ((score[i] > score[best]) && (load[i] + w <= capacity)) {
+			best = i;
+		    }
+		}
+		if (best != from) {
+		    part[q] = best;
+		    load[from] = load[from] - w;
+		    load[best] = load[best] + w;
+		    moved = moved + 1;
+		}
+	    }
+	    if (moved == 0) break;
+	}
+	return part;
+    }
+
+    /** Count, for each partition, the places it holds that share visitors
+     *  with one place, see <code>localize</code>
+     *  @param q  the id of the place
+     *  @param part  the partition of each place, or -1 if none yet
+     *  @param visits  where each person's places start in visited
+     *  @param visited  the places of each person
+     *  @param visitors  where each place's visitors start in visitor
+     *  @param visitor  the visitors of each place
+     *  @param share  places heavier than this are not counted
+     *  @param score  set to the count for each partition
+     */
+    private static void tally( int q, int[] part,
+	int[] visits, int[] visited, int[] visitors, int[] visitor,
+	long share, double[] score
+    ) {
+	Arrays.fill( score, 0.0 );
+	for (int k = visitors[q]; k < visitors[q + 1]; k++) {
+	    final int r = visitor[k];
+	    for (int j = visits[r]; j < visits[r + 1]; j++) {
+		final int o = visited[j];
+		if ((o != q) && (part[o] >= 0)
+		&&  (weight( visitors, o ) <= share)) {
+		    score[part[o]] = score[part[o]] + 1.0;
+		}
+	    }
+	}
+    }
+
+    /** @param visitors  where each place's visitors start, see localize
+     *  @param q  the id of a place
+     *  @return its weight, never zero
+     */
+    private static long weight( int[] visitors, int q ) {
+	return visitors[q + 1] - visitors[q] + 1;
+    }
+
+    /** Schedule the daily sync events of all partitions
+     *  <p>Partitions synchronize at midnight, for the report, and whenever
+     *  people may move.
+     *  @param model  the simulation in which the model was built
+     *  @param parts  its partitions
+     *  @return the times of day of the sync events, sorted
+     */
+    static long[] syncTimes( SimulationContext model, SimulationContext[] parts ) {
+	long[] moves = Role.moveTimes( model );
+	long[] steps;
+	if ((moves.length > 0) && (moves[0] == 0)) {
+	    steps = moves;
+	} else {
+	    steps = new long[moves.length + 1];
+	    System.arraycopy( moves, 0, steps, 1, moves.length );
+	}
+	for (SimulationContext part: parts) {
+	    for (long t: steps) {
+		part.simulator.schedulePeriodic(
+		    t, Time.day, EventKind.sync, 0, 0
+		);
+	    }
+	}
+	return steps;
+    }
+
+    /** Run the simulation up to some time
+     *  <p>This prints the daily report of the whole population, so the
+     *  reports scheduled in the model's own simulator are not needed.
+     *  @param end  the time to run until
+     */
+    public void runUntil( long end ) {
+	if (end < 0) return;
+
+	// everyone simulates up to and including the moves at midnight
+	Arrays.stream( parts ).parallel().forEach(
+	    (Partition p) -> p.leave( 0, 0 )
+	);
+
+	long day = 0;
+	int k = 0;
+	int parity = 0;
+	for (;;) {
+	    final long t = day + steps[k];
+	    k = k + 1;
+	    if (k == steps.length) {
+		k = 0;
+		day = day + Time.day;
+	    }
+	    final long next = (day + steps[k] <= end) ? day + steps[k] : -1;
+	    final int p = parity;
+
+	    // everyone who moved arrives, finishes t and runs on to next
+	    Arrays.stream( parts ).parallel().forEach(
+		(Partition part) -> part.step( t, next, p )
+	    );
+	    long longest = 0;
+	    for (Partition part: parts) longest = Math.max( longest, part.last );
+	    span = span + longest;
+	    rounds = rounds + 1;
+
+	    if (t % Time.day == 0) report( t );
+	    if (next < 0) break;
+	    parity = 1 - parity;
+	}
+    }
+
+    /** Report the population statistics summed over all partitions
+     *  <p>So is any occupancy, see <code>Occupancy</code>.
+     *  @param t  the time of the report
+     */
+    private void report( long t ) {
+	Arrays.fill( model.population, 0 );
+	for (Partition p: parts) {
+	    for (int s = 0; s < model.population.length; s++) {
+		model.population[s] = model.population[s] + p.population[s];
+	    }
+	    if (model.occupancy != null) model.occupancy.gather( t, p.occupancy );
+	}
+	Person.report( model, t );
+    }
+
+    /** Print what each partition did
+     *  <p>Partitions wait for the slowest at the end of each step, so with
+     *  as many processors as partitions the simulation can go no faster
+     *  than the sum over steps of the time taken by the slowest.  The ratio
+     *  of the total time to that sum is printed as the parallelism.  It is
+     *  worked out from processor time, so it is the most speedup this
+     *  partitioning allows, not a speedup; that is measured by comparing
+     *  the elapsed time with that of a sequential run.
+     *  @param out  where to print it
+     */
+    public void printStatistics( PrintStream out ) {
+	long work = 0;
+	for (Partition p: parts) work = work + p.busy;
+	out.printf( "parallel steps %d work %.3f s longest %.3f s parallelism %.2f\n",
+	    rounds, work / 1e9, span / 1e9, (span == 0) ? 1.0 : (double)work / span
+	);
+	for (Partition p: parts) {
+	    out.printf( "  partition %d arrivals %d migrants %d busy %.3f s\n",
+		p.id, p.arrivals, p.migrants, p.busy / 1e9
+	    );
+	}
+    }
+}
@@ -0,0 +1,42 @@
+// ParallelTest.java
+
+/** Checks that parallel simulation gives the same epidemics as sequential
+ *  <p>With <code>-threads</code>, the people and places are split among
+ *  partitions simulated in lock step, each drawing from its own stream of
+ *  random numbers, so for a given seed the run differs from a sequential
+ *  one.  Over many seeds, though, the final size of the epidemic must have
+ *  the same distribution either way.  This is checked on a town where
+ *  people move between places, so partitions exchange people all day.
+ *  <p>Usage: java -ea ParallelTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see ParallelSimulator
+ */
+class ParallelTest {
+    private static final int seeds = 300; // runs of each engine
+    private static final int days = 60;
+
+    // the parallel runs, one set of options per check
+    private static final String[][] options = {
+	{ "-threads", "2" }, { "-threads", "4" }
+    };
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( TestRun.town( days ) );
+	final double[] sequential = TestRun.finalSizes(
+	    file, 0, seeds, new String[] {}
+	);
+	for (int i = 0; i < options.length; i++) {
+	    // seeds not used for any other run, so the samples are independent
+	    final double[] parallel = TestRun.finalSizes(
+		file, (i + 1) * seeds, seeds, options[i]
+	    );
+	    TestRun.sameDistribution( "final size, sequential and "
+		+ String.join( " ", options[i] ), sequential, parallel
+	    );
+	}
+    }
+}
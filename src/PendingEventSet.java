@@ -0,0 +1,90 @@
+// PendingEventSet.java
+
+import java.util.function.Consumer;
+
+/** The pending event set of the simulation framework
+ *  <p>A pending event set holds all of the events that have been scheduled
+ *  but not yet simulated, and it hands them back in time order.
+ *  Different implementations suit different distributions of event times,
+ *  so <code>Simulator</code> lets the user pick one before scheduling.
+ *  @version Oct. 16, 2026 split out of Simulator
+ *  @see Simulator
+ *  @see HeapEventSet for the default implementation
+ *  @see CalendarQueue for an implementation suited to clustered times
+ *  @see LadderQueue for another implementation suited to clustered times
+ *  @see TwoTierEventSet for an implementation suited to daily schedules
+ */
+interface PendingEventSet {
+
+    /** Add an event to the set
+     *  @param e  the event, which must not already be in any set
+     */
+    void add( Simulator.RealEvent e );
+
+    /** Remove an event from the set
+     *  @param e  the event
+     *  @return true if the event was in the set, false if not
+     */
+    boolean remove( Simulator.RealEvent e );
+
+    /** Remove the earliest event from the set
+     *  @return the event, or null if the set is empty
+     */
+    Simulator.RealEvent poll();
+
+    /** Remove all the events simultaneous with the earliest event
+     *  <p>Implementations that keep simultaneous events together are
+     *  encouraged to do better than this, which polls them one at a time.
+     *  @param l  the list to which the events are added, in order
+     *  @return the number of events removed, zero if the set is empty
+     */
+    default int pollSimultaneous( EventList l ) {
+	Simulator.RealEvent e = poll();
+	if (e == null) return 0;
+	final long t = e.time;
+	int n = 1;
+	l.append( e );
+	for (e = peek(); (e != null) && (e.time == t); e = peek()) {
+	    l.append( poll() );
+	    n = n + 1;
+	}
+	return n;
+    }
+
+    /** Look at the earliest event without removing it
+     *  @return the event, or null if the set is empty
+     */
+    Simulator.RealEvent peek();
+
+    /** @return the number of events in the set
+     */
+    int size();
+
+    /** Do something to each event in the set, in no particular order
+     *  <p>The action must not change the set.
+     *  @param action  what to do to each event
+     */
+    void forEach( Consumer<Simulator.RealEvent> action );
+
+    /** @return true if there are no events in the set
+     */
+    default boolean isEmpty() {
+	return size() == 0;
+    }
+
+    /** Change the time of an event in the set
+     *  <p>Nothing happens if the event is not in the set.
+     *  Implementations are encouraged to do better than this.
+     *  @param e  the event
+     *  @param t  its new time
+     *  @return true if the event was in the set, false if not
+     */
+    default boolean reschedule( Simulator.RealEvent e, long t ) {
+	if (remove( e )) {
+	    e.time = t;
+	    add( e );
+	    return true;
+	}
+	return false;
+    }
+}
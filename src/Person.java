@@ -1,11 +1,12 @@
 // Person.java
 
-import java.util.LinkedList;
+import java.io.PrintStream;
+import java.util.ArrayList;
 
 /** People are the central actors in the simulation.
  *  @author Douglas W. Jones for setup
  *  @author 
- *  @version Apr. 16, 2021 cleaner code for population statistics
+ *  @version Oct. 17, 2026 coded events, per simulation state, fast-forward
  *  @see Role for the roles people play
  *  @see Place for the places people visit
  *  @see MyRandom for the source of randomness
@@ -22,36 +23,38 @@ public class Person {
         dead; // this must be the last state
         // note that the order of the above enumeration defines the order
         // of the fields of the CSV file output by the simulator.
-
-        int pop = 0; // each disease state has a population
+        // the population of each state is kept in the SimulationContext
     }
 
-    // timing characteristics of disease state
-    private static InfectionRule latent;
-    private static InfectionRule asymptomatic;
-    private static InfectionRule symptomatic;
-    private static InfectionRule bedridden;
+    // the number of disease states, needed to size population statistics
+    static final int diseaseStateCount = DiseaseStates.values().length;
 
     /** Set the disease parameters for the disease states.
      *  <p>This must be called once before simulation starts.
+     *  @param c   the simulation to which these parameters apply
      *  @param l   the infection rule for disease latency
      *  @param a   the infection rule for the asymptomatic phase
      *  @param s   the infection rule for the symptomatic phase
      *  @param b   the infection rule for the bedridden phase
      */
-    public static void setDiseaseParameters(
+    public static void setDiseaseParameters( SimulationContext c,
         InfectionRule l, InfectionRule a, InfectionRule s, InfectionRule b
     ) {
-        latent = l;
-        asymptomatic = a;
-        symptomatic = s;
-        bedridden = b;
+        c.latent = l;
+        c.asymptomatic = a;
+        c.symptomatic = s;
+        c.bedridden = b;
     }
 
     // linkage from person to place involves a schedule
     private class PlaceSchedule {
         public Place place;
         public Schedule schedule;
+        public Simulator.Event series; // the recurring visits to the place
+        public Simulator.Event trip;   // the pending trip home, if any
+        public boolean seriesCarried;  // series migrates, see emigrate
+        public boolean tripCarried;    // trip migrates, see emigrate
+        public int slot = -1;          // where in its occupants, see Place
         public PlaceSchedule( Place p, Schedule s ) {
             place = p;
             schedule = s;
@@ -59,19 +62,31 @@ public class Person {
     }
 
     // instance variables created from model description
+    SimulationContext ctx;        // the simulation this person is part of
+    final int id;                 // this person's number, see allPeople
     private final Role role;      // role of this person
-    private Place home;           // this person's home place, set by emplace
-    private final LinkedList<PlaceSchedule> places = new LinkedList<>();
+    private int home = -1;        // id of home place, set by emplace
+    private int homeSlot = -1;    // where in its occupants, see Place
+    private final ArrayList<PlaceSchedule> places = new ArrayList<>();
 
     // instance variables that change as simulation progressses
     private DiseaseStates diseaseState = DiseaseStates.uninfected;
-    private Place location;           // initialized by emplace
+    private int location = -1;        // id of place, initialized by emplace
     private Simulator.Event currInfect;// the event that makes this person sick
     // for the above, the default 0.0 allows for infection at startup
+    private int exposedAt = -1;        // id of the place currInfect is from
+    private int exposedBy = -1;        // id of who is blamed, see exposed
+    private Simulator.Event currState; // the next change of disease state
+    private boolean inTransit = false; // moving, see ParallelSimulator
+    int rank;                          // order of simultaneous arrivals
+    private boolean infectCarried;     // currInfect migrates, see emigrate
+    private boolean stateCarried;      // currState migrates, see emigrate
 
-    // static variables used for all people
-    private static LinkedList<Person> allPeople = new LinkedList<Person>();
-    private static MyRandom rand = MyRandom.stream;
+    // the hazard clock, used only if ctx.hazardClock, see hazardRate
+    private double threshold = -1.0;   // hazard that infects, -1 if not drawn
+    private double hazard = 0.0;       // hazard accumulated up to hazardSince
+    private double hazardRate = 0.0;   // hazard per tick since hazardSince
+    private long hazardSince = 0;
 
     /** Construct a new person to perform some role
      *  <p>This constructor deliberately defers putting people in any places.
@@ -80,14 +95,18 @@ public class Person {
      *  The separation between constructing people and emplacing them allows
      *  for shuffling the set of people in order to randomize the places into
      *  which they fall.
+     *  @param c  the simulation this person is part of
      *  @param r  the role of this person
      */
-    public Person( Role r ) {
+    public Person( SimulationContext c, Role r ) {
+        ctx = c;
         role = r;
 
-        allPeople.add( this ); // include this person in the list of all
+        id = ctx.allPeople.size();
+        ctx.allPeople.add( this ); // include this person in the list of all
 
-        diseaseState.pop ++;   // keep the population statistics up to date
+        // keep the population statistics up to date
+        ctx.population[diseaseState.ordinal()]++;
     };
 
     // methods used during model construction, at time 0.0
@@ -102,14 +121,15 @@ public class Person {
      */
     public void emplace( Place p, Schedule s ) {
         if (s != null) {
-            places.add( new PlaceSchedule( p, s ) );
-            s.apply( this, p ); // commit to following schedule s for place p
+            PlaceSchedule ps = new PlaceSchedule( p, s );
+            places.add( ps );
+            ps.series = s.apply( this, places.size() - 1 ); // commit to s
         } else {
-            assert home == null: "Role guarantees only one home place";
-            home = p;
+            assert home < 0: "Role guarantees only one home place";
+            home = p.id;
             location = home;
 
-            location.arrive( 0.0, this ); // tell location about new occupant
+            p.arrive( 0, this ); // tell location about new occupant
         }
     }
 
@@ -127,6 +147,94 @@ public class Person {
      && (diseaseState.compareTo( DiseaseStates.bedridden ) <= 0);
     }
 
+    /** Is someone in a disease state contageous?
+     *  @param s  the ordinal of the state
+     *  @return true if it is, as in <code>isContageous()</code>
+     *  @see EventTrace
+     */
+    static boolean isContageous( int s ) {
+        return (s >= DiseaseStates.asymptomatic.ordinal())
+            && (s <= DiseaseStates.bedridden.ordinal());
+    }
+
+    /** @return true if this person can be infected
+     */
+    boolean isSusceptible() {
+        return diseaseState == DiseaseStates.uninfected;
+    }
+
+    /** @return the ordinal of this person's disease state
+     *  @see EventTrace
+     */
+    int state() {
+        return diseaseState.ordinal();
+    }
+
+    /** @return the id of where this person is, or was last if dead,
+     *  or -1 if nowhere
+     *  @see EventTrace
+     */
+    int location() {
+        return location;
+    }
+
+    /** Find a place by id
+     *  @param id  the id of the place, or -1
+     *  @return the place, or null if id is -1
+     */
+    private Place place( int id ) {
+        return (id < 0) ? null : ctx.allPlaces.get( id );
+    }
+
+    /** What disease state does an event leave someone in?
+     *  <p>This mirrors the service routines below, so that a trace of
+     *  events can be replayed without simulating them.
+     *  @param kind  the kind of event, a change of disease state
+     *  @param s  the ordinal of the state before the event
+     *  @return the ordinal of the state after
+     *  @see EventTrace
+     */
+    static int stateAfter( EventKind kind, int s ) {
+        switch (kind) {
+        case infect:
+            return (s == DiseaseStates.uninfected.ordinal())
+                ? DiseaseStates.latent.ordinal()
+                : s;
+        case beContageous: return DiseaseStates.asymptomatic.ordinal();
+        case feelSick:     return DiseaseStates.symptomatic.ordinal();
+        case goToBed:      return DiseaseStates.bedridden.ordinal();
+        case recover:      return DiseaseStates.recovered.ordinal();
+        case die:          return DiseaseStates.dead.ordinal();
+        default:           return s;
+        }
+    }
+
+    /** How does an event change the count of contageous people where
+     *  someone is?
+     *  <p>This mirrors the service routines below, which tell the place
+     *  when someone stops or starts being contageous there.
+     *  @param kind  the kind of event, a change of disease state
+     *  @param s  the ordinal of the state before the event
+     *  @return the change, -1, 0 or +1
+     *  @see EventTrace
+     */
+    static int contageonChange( EventKind kind, int s ) {
+        final int before = isContageous( s ) ? 1 : 0;
+        final int after = isContageous( stateAfter( kind, s ) ) ? 1 : 0;
+        return after - before;
+    }
+
+    /** Move this person to a new disease state
+     *  <p>This keeps the population statistics up to date.
+     *  @param s  the new state
+     */
+    private void changeState( DiseaseStates s ) {
+        currState = null; // any pending state change is this one
+        ctx.population[diseaseState.ordinal()]--;
+        diseaseState = s;
+        ctx.population[diseaseState.ordinal()]++;
+    }
+
     // simulation of behavior
 
     /** Schedule the time at which a person will be infected.
@@ -135,23 +243,91 @@ public class Person {
      *  The actual delay until infection is randomized based on the mean
      *  delay provided.
      *  @param time  the current time
-     *  @param meanDelay  the mean delay until infection
+     *  @param meanDelay  the mean delay until infection, in ticks
      */
-    public void scheduleInfect( double time, double meanDelay ) {
+    public void scheduleInfect( long time, double meanDelay ) {
         if (diseaseState == DiseaseStates.uninfected) { // irrelevant if not
-            double delay = rand.nextExponential( meanDelay );
+            double delay = ctx.rand.nextExponential( meanDelay );
+            if (!Double.isInfinite(delay) && !Double.isNaN(delay)) {
+                exposed( location );
+            }
             if (currInfect == null) {
-                currInfect = Simulator.schedule(time + delay,
-                    (double t)-> infect(time + delay));
+                currInfect = ctx.simulator.schedule(
+                    Time.after( time, delay ), EventKind.infect, id, 0
+                );
             } else if (Double.isInfinite(delay) || Double.isNaN(delay)) {
-                Simulator.cancel(currInfect);
+                ctx.simulator.cancel(currInfect);
                 currInfect = null;
             } else {
-                Simulator.reschedule(currInfect, time + delay);
+                ctx.simulator.reschedule(currInfect, Time.after( time, delay ));
             }
         }
     }
 
+    /** Change the rate at which this person accumulates hazard of infection
+     *  <p>This is the alternative to <code>scheduleInfect</code> used when
+     *  <code>ctx.hazardClock</code> is set, the modified next reaction
+     *  method.  Each susceptible person draws one unit exponential
+     *  threshold, the first time they are exposed, and accumulates the
+     *  integral of the hazard rate, contageous times transmissivity, of the
+     *  places where they are.  Their infection is scheduled for when that
+     *  integral, projected forward at the current rate, reaches the
+     *  threshold.  A change of rate then costs one reschedule and no random
+     *  numbers, however often it happens.
+     *  @param time  the time of the change
+     *  @param r     the new rate, per tick
+     *  @see Place#expose
+     */
+    void hazardRate( long time, double r ) {
+        if (diseaseState != DiseaseStates.uninfected) return;
+        if (r > 0.0) exposed( location );
+        if ((r == hazardRate) && ((r > 0.0) || (currInfect == null))) return;
+        hazard = hazard + hazardRate * (time - hazardSince);
+        hazardSince = time;
+        hazardRate = r;
+        if (r <= 0.0) {
+            if (currInfect != null) ctx.simulator.cancel( currInfect );
+            currInfect = null;
+            return;
+        }
+        if (threshold < 0.0) threshold = ctx.rand.nextExponential( 1.0 );
+        // a move at the instant of an infection may bank hazard up to the
+        // end of that instant, past the threshold; that infection is due now
+        final long t = (hazard >= threshold)
+            ? time
+            : Time.after( time, (threshold - hazard) / r );
+        if (currInfect == null) {
+            currInfect = ctx.simulator.schedule( t, EventKind.infect, id, 0 );
+        } else {
+            ctx.simulator.reschedule( currInfect, t );
+        }
+    }
+
+    /** Note the place a pending infection comes from, and whom to blame
+     *  <p>This is called whenever the rate of infection is set from the
+     *  place where a person is.  The exposure is kept with the pending
+     *  infection, so if the person moves on before it happens, it is still
+     *  blamed on the place and the person that caused it.
+     *  @param place  the id of the place
+     *  @see TransmissionTree
+     */
+    void exposed( int place ) {
+        exposedAt = place;
+        if (ctx.tree != null) exposedBy = ctx.tree.blame( place );
+    }
+
+    /** Stop accumulating hazard of infection, on leaving a place
+     *  <p>The pending infection, if any, is left to be rescheduled or
+     *  cancelled by <code>hazardRate</code> on arrival at the next place;
+     *  should it happen first, <code>infect</code> ignores it.
+     *  @param time  the time of departure
+     */
+    void leaveHazard( long time ) {
+        hazard = hazard + hazardRate * (time - hazardSince);
+        hazardSince = time;
+        hazardRate = 0.0;
+    }
+
     /** Infect this person.
      *  <p>This is a schedulable event service routine.
      *  <p>This may be called on a person in any infection state but it only
@@ -159,20 +335,34 @@ public class Person {
      *  <code>uninfected</code>.
      *  @param time the time of infection
      */
-    public void infect( double time ) {
+    public void infect( long time ) {
+    if ((currInfect != null) && ctx.hazardClock && (hazardRate <= 0.0)) {
+        currInfect = null; // in transit, see leaveHazard
+        return;
+    }
+    if (currInfect != null) { // forget any pending infection, see schedule
+        ctx.simulator.cancel( currInfect );
+        currInfect = null;
+    }
     if (diseaseState == DiseaseStates.uninfected) { // no reinfection
-        final double duration = latent.duration();
+        final long duration = ctx.latent.duration( ctx.rand );
+        if (location >= 0) place( location ).infected( time, this );
+        if (ctx.tree != null) {
+            ctx.tree.record( time, this, exposedAt, exposedBy );
+        }
+        exposedAt = -1;
+        exposedBy = -1;
 
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.latent;
-        diseaseState.pop++;
+        changeState( DiseaseStates.latent );
 
-        if (latent.recover()) {
-            Simulator.schedule( time + duration, (double t)->recover( t ) );
+        if (ctx.latent.recover( ctx.rand )) {
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.recover, id, 0
+            );
         } else {
-            Simulator.schedule(
-                time + duration, (double t)-> beContageous( t )
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.beContageous, id, 0
             );
         }
         }
@@ -184,22 +374,25 @@ public class Person {
      *  infection and makes the person <code>asymptomatic</code>.
      *  @param time   the time of this state change
      */
-    public void beContageous( double time ) {
+    public void beContageous( long time ) {
         assert diseaseState == DiseaseStates.latent : "not latent";
-        final double duration = asymptomatic.duration();
+        if (ctx.skipping) resumeMoves( ctx, time ); // someone must be here
+        final long duration = ctx.asymptomatic.duration( ctx.rand );
 
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.asymptomatic;
-        diseaseState.pop++;
+        changeState( DiseaseStates.asymptomatic );
 
         // tell place that I'm sick
-        if (location != null) location.contageous( time, +1 );
+        tellLocation( time, +1 );
 
-        if (asymptomatic.recover()) {
-            Simulator.schedule( time + duration, (double t)-> recover( t ) );
+        if (ctx.asymptomatic.recover( ctx.rand )) {
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.recover, id, 0
+            );
         } else {
-            Simulator.schedule( time + duration, (double t)-> feelSick( t ) );
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.feelSick, id, 0
+            );
         }
     }
 
@@ -211,19 +404,21 @@ public class Person {
      *  makes the person symptomatic.
      *  @param time  the time of this state change
      */
-    public void feelSick( double time ) {
+    public void feelSick( long time ) {
         assert diseaseState == DiseaseStates.asymptomatic: "not asymptomatic";
-        final double duration = symptomatic.duration();
+        final long duration = ctx.symptomatic.duration( ctx.rand );
 
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.symptomatic;
-        diseaseState.pop++;
+        changeState( DiseaseStates.symptomatic );
 
-        if (symptomatic.recover()) {
-            Simulator.schedule( time + duration, (double t)-> recover( t ) );
+        if (ctx.symptomatic.recover( ctx.rand )) {
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.recover, id, 0
+            );
         } else {
-            Simulator.schedule( time + duration, (double t)-> goToBed( t ) );
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.goToBed, id, 0
+            );
         }
     }
 
@@ -234,19 +429,21 @@ public class Person {
      *  <code>bedridden</code>.
      *  @param time  the time of this state change
      */
-    public void goToBed( double time ) {
+    public void goToBed( long time ) {
         assert diseaseState == DiseaseStates.symptomatic: "not symptomatic";
-        final double duration = bedridden.duration();
+        final long duration = ctx.bedridden.duration( ctx.rand );
 
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.bedridden;
-        diseaseState.pop++;
+        changeState( DiseaseStates.bedridden );
 
-        if (symptomatic.recover()) {
-            Simulator.schedule( time + duration, (double t)-> recover( t ) );
+        if (ctx.symptomatic.recover( ctx.rand )) {
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.recover, id, 0
+            );
         } else {
-            Simulator.schedule( time + duration, (double t)-> die( t ) );
+            currState = ctx.simulator.schedule(
+                time + duration, EventKind.die, id, 0
+            );
         }
     }
 
@@ -257,13 +454,13 @@ public class Person {
      *  and immune from further infection.
      *  @param time   the time of this state change
      */
-    public void recover( double time ) {
+    public void recover( long time ) {
+        final boolean wasContageous = isContageous(); // not if latent
+
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.recovered;
-        diseaseState.pop++;
+        changeState( DiseaseStates.recovered );
 
-        if (location != null) location.contageous( time, -1 );
+        if (wasContageous) tellLocation( time, -1 );
     }
 
     /** This person dies
@@ -272,15 +469,20 @@ public class Person {
      *  <code>bedridden</code>, and it makes that person <code>dead</code>.
      *  @param time  the time of this state change
      */
-    public void die( double time ) {
+    public void die( long time ) {
         assert diseaseState == DiseaseStates.bedridden: "not bedridden";
+        final boolean wasContageous = isContageous();
+
         // update population statistics
-        diseaseState.pop--;
-        diseaseState = DiseaseStates.dead;
-        diseaseState.pop++;
+        changeState( DiseaseStates.dead );
+
+        if (location >= 0) leave( time, wasContageous );
 
-        if (location != null) {
-            location.depart( time, this );
+        // the dead keep no schedules, nor go home from where they died
+        for (PlaceSchedule ps: places) {
+            ctx.simulator.cancel( ps.series );
+            if (ps.trip != null) ctx.simulator.cancel( ps.trip );
+            ps.trip = null;
         }
 
         // no new event is scheduled.
@@ -290,77 +492,517 @@ public class Person {
      *  <p>This is a schedulable event service routine.
      *  @param time of the move
      */
-    public void goHome( double time ) {
-        travelTo( time, home );
+    public void goHome( long time ) {
+        travelTo( time, place( home ) );
         }
 
         /** Tell this person to go somewhere
          *  <p>This is a schedulable event service routine.
          *  <p>Note that this enforces the rule that <code>bedridden</code>
          *  people never leave home.
+         *  <p>In a parallel simulation, the person leaves here but only
+         *  arrives there when <code>ParallelSimulator</code> has collected
+         *  all the moves at this time from all partitions.
          *  @param time  when the person goes there
          *  @param place  where the person goes
          */
-        public void travelTo( double time, Place place ) {
-        if ((diseaseState != DiseaseStates.bedridden) || (place == home)) {
-            location.depart( time, this );
-            location = place;
-            location.arrive( time, this );
+        public void travelTo( long time, Place place ) {
+        if ((diseaseState != DiseaseStates.bedridden) || (place.id == home)) {
+            if (!inTransit) leave( time, isContageous() );
+            location = place.id;
+            if (ctx.lp != null) { // TimeWarpSimulator finishes the move
+                ctx.lp.arrive( time, place, this, isContageous() );
+            } else if (ctx.outbox != null) { // so does ParallelSimulator
+                if (!inTransit) {
+                    inTransit = true;
+                    ctx.outbox.add( this );
+                }
+            } else {
+                place.arrive( time, this );
+            }
+        }
+    }
+
+    /** Tell the place where this person is that they have left
+     *  @param time  when they leave
+     *  @param c  true if they were contageous there
+     */
+    private void leave( long time, boolean c ) {
+        if (ctx.lp != null) {
+            ctx.lp.depart( time, place( location ), this, c );
+        } else {
+            place( location ).depart( time, this, c );
+        }
+    }
+
+    /** Tell the place where this person is that they changed contageon
+     *  @param time  when they changed
+     *  @param c  +1 if they became contageous, -1 if they stopped
+     */
+    private void tellLocation( long time, int c ) {
+        if (location < 0) return;
+        final Place here = place( location );
+        if (here.owner == ctx) {
+            here.contageous( time, c );
+        } else {
+            ctx.lp.contageous( time, here, this, c );
+        }
+    }
+
+    /** Move this person, with all their pending events, to the partition
+     *  that owns the place where they are.
+     *  <p>This is used only by <code>ParallelSimulator</code>, between
+     *  time steps, so no other partition is touching this person.
+     */
+    void migrate() {
+        final SimulationContext to = place( location ).owner;
+        if (to == ctx) return;
+        emigrate();
+        immigrate( to );
+    }
+
+    /** Take this person, with all their pending events, out of their
+     *  partition, the first half of <code>migrate</code>.
+     *  <p>The events are in no simulator until <code>immigrate</code>,
+     *  so this and that may be done by different threads, one after the
+     *  other.
+     */
+    void emigrate() {
+        final Simulator from = ctx.simulator;
+        infectCarried = (currInfect != null) && from.release( currInfect );
+        stateCarried = (currState != null) && from.release( currState );
+        for (PlaceSchedule ps: places) {
+            ps.seriesCarried = (ps.series != null) && from.release( ps.series );
+            ps.tripCarried = (ps.trip != null) && from.release( ps.trip );
+        }
+        ctx.population[diseaseState.ordinal()]--;
+    }
+
+    /** Put this person, with the events they carry, in a partition, the
+     *  second half of <code>migrate</code>
+     *  @param to  the partition
+     */
+    void immigrate( SimulationContext to ) {
+        final Simulator into = to.simulator;
+        if (infectCarried) into.adopt( currInfect );
+        if (stateCarried) into.adopt( currState );
+        infectCarried = false;
+        stateCarried = false;
+        for (PlaceSchedule ps: places) {
+            if (ps.seriesCarried) into.adopt( ps.series );
+            if (ps.tripCarried) into.adopt( ps.trip );
+            ps.seriesCarried = false;
+            ps.tripCarried = false;
+        }
+        ctx = to;
+        ctx.population[diseaseState.ordinal()]++;
+    }
+
+    /** Finish a move started by <code>travelTo</code>
+     *  <p>If the destination is owned by another partition, this person
+     *  must have emigrated from the partition they left, and immigrates
+     *  there first.
+     *  @param time  when the person arrives
+     */
+    void arriveFromTransit( long time ) {
+        if (inTransit) {
+            inTransit = false;
+            final Place there = place( location );
+            if (there.owner != ctx) immigrate( there.owner );
+            there.arrive( time, this );
+        }
+    }
+
+    /** @return how many places this person visits, home first
+     */
+    int placeCount() {
+        return places.size() + 1;
+    }
+
+    /** @param i  which of the places this person visits, home first
+     *  @return the id of that place
+     */
+    int placeId( int i ) {
+        return (i == 0) ? home : places.get( i - 1 ).place.id;
+    }
+
+    /** The state of a person, saved for later
+     *  <p>Pending events are saved by the simulator; this saves only which
+     *  events belong to the person.
+     *  @see #save
+     */
+    static class Saved {
+        private final DiseaseStates diseaseState;
+        private final int location;
+        private final Simulator.Event currInfect;
+        private final Simulator.Event currState;
+        private final Simulator.Event[] trips;
+
+        private Saved( Person p ) {
+            diseaseState = p.diseaseState;
+            location = p.location;
+            currInfect = p.currInfect;
+            currState = p.currState;
+            trips = new Simulator.Event[p.places.size()];
+            for (int i = 0; i < trips.length; i++) {
+                trips[i] = p.places.get( i ).trip;
+            }
+        }
+    }
+
+    /** Save the state of this person
+     *  <p>Population statistics are not saved here, they belong to the
+     *  simulation as a whole.
+     *  @return the saved state
+     */
+    Saved save() {
+        return new Saved( this );
+    }
+
+    /** Put this person back in a saved state
+     *  @param s  the saved state
+     */
+    void restore( Saved s ) {
+        diseaseState = s.diseaseState;
+        location = s.location;
+        currInfect = s.currInfect;
+        currState = s.currState;
+        for (int i = 0; i < s.trips.length; i++) {
+            places.get( i ).trip = s.trips[i];
+        }
+    }
+
+    /** Write this person to a checkpoint
+     *  <p>The pending events must already have been written.
+     *  @param c  the checkpoint
+     *  @see Checkpoint#take
+     */
+    void checkpoint( Checkpoint c ) {
+        c.putInt( ctx.allRoles.indexOf( role ) );
+        c.putByte( diseaseState.ordinal() );
+        c.putInt( home );
+        c.putInt( location );
+        c.putInt( c.event( currInfect ) );
+        c.putInt( exposedAt );
+        c.putInt( exposedBy );
+        c.putInt( c.event( currState ) );
+        c.putDouble( threshold );
+        c.putDouble( hazard );
+        c.putDouble( hazardRate );
+        c.putLong( hazardSince );
+        c.putInt( places.size() );
+        for (PlaceSchedule ps: places) {
+            c.putInt( Checkpoint.place( ps.place ) );
+            c.putInt( role.scheduleNumber( ps.schedule ) );
+            c.putInt( c.event( ps.series ) );
+            c.putInt( c.event( ps.trip ) );
+        }
+    }
+
+    /** Make a person again from a checkpoint
+     *  <p>The pending events and the places must already have been
+     *  restored.  The person is not put in any place here; places restore
+     *  their own occupants.
+     *  @param ctx  the simulation being restored
+     *  @param c  the checkpoint
+     *  @see #checkpoint
+     */
+    static void restore( SimulationContext ctx, Checkpoint c ) {
+        final Person p = new Person( ctx, ctx.allRoles.get( c.getInt() ) );
+        ctx.population[p.diseaseState.ordinal()]--;
+        p.diseaseState = DiseaseStates.values()[c.getByte()];
+        ctx.population[p.diseaseState.ordinal()]++;
+        p.home = c.getInt();
+        p.location = c.getInt();
+        p.currInfect = c.event( c.getInt() );
+        p.exposedAt = c.getInt();
+        p.exposedBy = c.getInt();
+        p.currState = c.event( c.getInt() );
+        p.threshold = c.getDouble();
+        p.hazard = c.getDouble();
+        p.hazardRate = c.getDouble();
+        p.hazardSince = c.getLong();
+        final int n = c.getInt();
+        for (int i = 0; i < n; i++) {
+            PlaceSchedule ps = p.new PlaceSchedule(
+                Checkpoint.place( ctx, c.getInt() ),
+                p.role.schedule( c.getInt() )
+            );
+            ps.series = c.event( c.getInt() );
+            ps.trip = c.event( c.getInt() );
+            p.places.add( ps );
+        }
+    }
+
+    /** Where is this person among the occupants of a place?
+     *  <p>Each link from a person to a place they visit keeps its own
+     *  slot, and only that place changes it, so places in different
+     *  partitions of a parallel simulation never share one.
+     *  @param place  the id of a place this person visits
+     *  @return their index among its occupants, or -1 if not there
+     *  @see Place#indexOf
+     */
+    int slot( int place ) {
+        if (place == home) return homeSlot;
+        for (PlaceSchedule ps: places) {
+            if (ps.place.id == place) return ps.slot;
+        }
+        assert false: "not a place this person visits";
+        return -1;
+    }
+
+    /** Note where this person is among the occupants of a place
+     *  @param place  the id of a place this person visits
+     *  @param i  their index among its occupants, or -1 if not there
+     */
+    void slot( int place, int i ) {
+        if (place == home) {
+            homeSlot = i;
+            return;
+        }
+        for (PlaceSchedule ps: places) {
+            if (ps.place.id == place) {
+                ps.slot = i;
+                return;
+            }
+        }
+        assert false: "not a place this person visits";
+    }
+
+    /** Record the trip home that goes with a visit
+     *  @param which  the number of the schedule that made the trip
+     *  @param e  the event that brings the person home
+     */
+    void setTrip( int which, Simulator.Event e ) {
+        places.get( which ).trip = e;
+    }
+
+    /** Simulate a coded event.
+     *  <p>This is the dispatcher for all coded events, see
+     *  <code>EventKind</code> for what each kind means.
+     *  @param ctx  the simulation in which the event occurs
+     *  @param time  the time of the event
+     *  @param kind  the kind of event
+     *  @param subject  the id of the person involved, if any
+     *  @param target  the number of the schedule involved, if any
+     */
+    public static void dispatch( SimulationContext ctx,
+        long time, EventKind kind, int subject, int target
+    ) {
+        if (kind == EventKind.report) {
+            report( ctx, time );
+            return;
+        }
+        if (kind == EventKind.sync) { // end of a parallel time step
+            ctx.simulator.pause();
+            return;
+        }
+        if (kind == EventKind.transmit) { // subject is a place
+            ((WellMixedPlace)ctx.allPlaces.get( subject )).transmit( time );
+            return;
+        }
+        final Person p = ctx.allPeople.get( subject );
+        switch (kind) {
+        case go:
+            PlaceSchedule ps = p.places.get( target );
+            ps.schedule.go( time, p, ps.place, target );
+            break;
+        case goHome:
+            p.places.get( target ).trip = null;
+            p.goHome( time );
+            break;
+        case infect:       p.infect( time );       break;
+        case beContageous: p.beContageous( time ); break;
+        case feelSick:     p.feelSick( time );     break;
+        case goToBed:      p.goToBed( time );      break;
+        case recover:      p.recover( time );      break;
+        case die:          p.die( time );          break;
+        default: assert false: "unexpected event kind";
+        }
+    }
+
+    // fast forward, see SimulationContext.fastForward
+
+    /** Is anyone in a simulation contageous?
+     *  @param ctx  the simulation
+     *  @return true if they are
+     */
+    static boolean anyContageous( SimulationContext ctx ) {
+        for (int s = DiseaseStates.asymptomatic.ordinal();
+            s <= DiseaseStates.bedridden.ordinal(); s++
+        ) {
+            if (ctx.population[s] > 0) return true;
+        }
+        return false;
+    }
+
+    /** Stop moving people around, since nobody is contageous
+     *  <p>Everyone living stops following their schedules and leaves the
+     *  place they are in; where they are will be worked out again from
+     *  their schedules when someone becomes contageous.  Until then,
+     *  moves cannot matter, since nobody can be infected.
+     *  The dead are left alone, they have no schedules.
+     *  @param ctx  the simulation
+     *  @param time  the time, at the end of an instant
+     *  @see #resumeMoves
+     */
+    static void skipMoves( SimulationContext ctx, long time ) {
+        ctx.skipping = true;
+        for (Person p: ctx.allPeople) {
+            if (p.diseaseState == DiseaseStates.dead) continue;
+            for (PlaceSchedule ps: p.places) {
+                ctx.simulator.suspend( ps.series );
+                if (ps.trip != null) {
+                    ctx.simulator.cancel( ps.trip );
+                    ps.trip = null;
+                }
+            }
+        }
+        for (Place pl: ctx.allPlaces) pl.empty();
+    }
+
+    /** Put everyone back where their schedules say they are
+     *  <p>Each living person is at the place of whichever schedule covers
+     *  this time of day, if they took that trip, with the trip home
+     *  pending, and otherwise at home; whether they took the trip is drawn
+     *  as <code>Schedule.go</code> would have.  A visit ending after
+     *  midnight covers the early hours of the next day, so the visit that
+     *  covers this time may have begun yesterday.  All schedules resume
+     *  with their next visits.
+     *  @param ctx  the simulation
+     *  @param time  the time
+     *  @see #skipMoves
+     */
+    static void resumeMoves( SimulationContext ctx, long time ) {
+        ctx.skipping = false;
+        final long midnight = time - (time % Time.day);
+        final long timeOfDay = time - midnight;
+        for (Person p: ctx.allPeople) {
+            if (p.diseaseState == DiseaseStates.dead) continue;
+            p.location = p.home;
+            for (int i = 0; i < p.places.size(); i++) {
+                final PlaceSchedule ps = p.places.get( i );
+                final Schedule s = ps.schedule;
+                long next = midnight + s.startTime;
+                if (next < time) next = next + Time.day;
+                ctx.simulator.resume( ps.series, next );
+
+                // the start of the visit covering this time, if any; no
+                // visit began before the simulation did
+                long began = -1;
+                if ((s.startTime < timeOfDay)
+                &&  (timeOfDay < s.startTime + s.duration)
+                ) {
+                    began = midnight + s.startTime;
+                } else if (timeOfDay + Time.day < s.startTime + s.duration) {
+                    began = midnight - Time.day + s.startTime;
+                }
+                if ((began >= 0) && (ctx.rand.nextFloat() < s.likelihood)) {
+                    p.location = ps.place.id;
+                    ps.trip = ctx.simulator.schedule(
+                        began + s.duration, EventKind.goHome, p.id, i
+                    );
+                }
+            }
+            p.place( p.location ).arrive( time, p );
         }
     }
 
     // reporting tools
 
     /** Start the logical process of reporting results.
-     *  <p>The report is in CSV format sent to <code>system.out</code>
+     *  <p>The report is in CSV format sent to the output stream of the
+     *  simulation, usually <code>system.out</code>
      *  (aka <code>stdout</code>).  If a headline is requested, the first
      *  line gives the names of each column.  All following lines are
      *  numeric, giving the time and the number of people in each disease
      *  state.  The order of the disease states is set by a private
      *  in class <code>Person</code> and disclosed in the headline.
-     *  printed here.
+     *  printed here.  Any columns of occupancy follow, see
+     *  <code>report</code>.
+     *  @param ctx  the simulation to report on
      *  @param headline is a headline to be included
      */
-    public static void startReporting( boolean headline ) {
+    public static void startReporting(
+        SimulationContext ctx, boolean headline
+    ) {
         if (headline) {
-            System.out.print( "time" );
-            for (DiseaseStates s: DiseaseStates.values()) {
-                System.out.print( "," );
-                System.out.print( s.name() );
-            }
-            System.out.println();
+            columns( ctx.out );
+            if (ctx.occupancy != null) ctx.occupancy.headline( ctx.out );
+            ctx.out.println();
         }
-        // schedule the first report
-        Simulator.schedule( 0.0, (double t)-> Person.report( t ) );
+        // schedule the reports, one a day
+        ctx.simulator.schedulePeriodic( 0, Time.day, EventKind.report, 0, 0 );
     }
 
     /** Report population statistics at the given time.
-     *  <p>This is a schedulable event service routine.
-     *  <p>Each report is a CSV line sent to <code>system.out</code>
-     *  (aka <code>stdout</code>) giving the time and the
-     *  population statistics for each disease state.
+     *  <p>This is a schedulable event service routine, it recurs daily.
+     *  <p>Each report is a CSV line sent to the output stream of the
+     *  simulation giving the time and the
+     *  population statistics for each disease state.  If the simulation
+     *  keeps an <code>Occupancy</code>, these are followed by the
+     *  person-hours spent in each kind of place since the previous report,
+     *  and the person-hours of those exposed there.
+     *  @param ctx  the simulation to report on
      *  @param time  the simulated time of the report
      */
-    private static void report( double time ) {
-        System.out.print( Double.toString( time/Time.day ) );
+    static void report( SimulationContext ctx, long time ) {
+        population( ctx.out, time, ctx.population );
+        if (ctx.occupancy != null) ctx.occupancy.report( ctx.out, time );
+        ctx.out.println();
+    }
+
+    /** Print the headline of the report, naming each column
+     *  @param out  where to print it
+     */
+    static void headline( PrintStream out ) {
+        columns( out );
+        out.println();
+    }
+
+    /** Print the names of the columns giving the population
+     *  @param out  where to print them
+     */
+    private static void columns( PrintStream out ) {
+        out.print( "time" );
         for (DiseaseStates s: DiseaseStates.values()) {
-            System.out.print( "," );
-            System.out.print( Integer.toString( s.pop ) );
+            out.print( "," );
+            out.print( s.name() );
         }
-        System.out.println();
+    }
+
+    /** Print one line of the report
+     *  @param out  where to print it
+     *  @param time  the simulated time of the report
+     *  @param population  the number of people in each disease state
+     */
+    static void report( PrintStream out, long time, int[] population ) {
+        population( out, time, population );
+        out.println();
+    }
 
-        // schedule the next report
-        Simulator.schedule( time + 24*Time.hour,
-            (double t)-> Person.report( t )
-        );
+    /** Print the columns of the report giving the population
+     *  @param out  where to print them
+     *  @param time  the simulated time of the report
+     *  @param population  the number of people in each disease state
+     */
+    private static void population(
+        PrintStream out, long time, int[] population
+    ) {
+        out.print( Double.toString( Time.days( time ) ) );
+        for (int pop: population) {
+            out.print( "," );
+            out.print( Integer.toString( pop ) );
+        }
     }
 
     /** Print out the entire population.
      *  This is needed only in the early stages of debugging
      *  and obviously useless for large populations.
+     *  @param ctx  the simulation whose people are printed
      */
-    public static void printAll() {
-        for (Person p: allPeople) {
+    public static void printAll( SimulationContext ctx ) {
+        for (Person p: ctx.allPeople) {
             // line 1: person id and role
             System.out.print( p.toString() );
             System.out.print( " " );
@@ -368,14 +1010,14 @@ public class Person {
 
             // line 2 the home
             System.out.print( " " ); // indent following lines
-            System.out.print( p.home.kind.name );
+            System.out.print( p.place( p.home ).kind().name );
             System.out.print( " " );
-            System.out.print( p.home.toString() );
+            System.out.print( p.place( p.home ).toString() );
             System.out.println();
             // lines 3 and up: each place and its schedule
             for (PlaceSchedule ps: p.places ) {
                 System.out.print( " " ); // indent following lines
-                System.out.print( ps.place.kind.name );
+                System.out.print( ps.place.kind().name );
                 System.out.print( " " );
                 System.out.print( ps.place.toString() );
                 assert ps.schedule != null: "guaranteed by PlaceKind";
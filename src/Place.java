@@ -1,32 +1,73 @@
 // Place.java
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * Places that people are associate with and may occupy.
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 Every place is an instance of some kind of PlaceKind
+ * @version Oct. 17, 2026 state kept in a PlaceStore, room asked of the place
  * @see PlaceKind for most of the attributes of places
+ * @see PlaceStore for the kind, transmissivity, contageon and occupants
  */
 public class Place {
-	// instance variables fixed at creation
-	public final PlaceKind kind; // what kind of place is this?
-	private final double transmissivity; // how dangerous is it to stay here
+	// where this place's kind, transmissivity and occupants are kept
+	final PlaceStore store;
 
-	// instance variables that vary with circumstances
-	private int contageous = 0; // how many infectious people are here
-	private final LinkedList<Person> occupants = new LinkedList<>();
+	// this place's number, its index in allPlaces and in the store
+	final int id;
+
+	// the simulation that owns this place, see ParallelSimulator
+	SimulationContext owner;
 
 	/**
 	 * Construct a new place
 	 * 
-	 * @param k -- the kind of place
-	 * @param t -- the transmissivity of the place
+	 * @param c -- the simulation that owns it
+	 * @param i -- its id, already added to the store
+	 * @see PlaceKind#newPlace
+	 */
+	Place(SimulationContext c, int i) {
+		owner = c;
+		store = c.placeStore;
+		id = i;
+	}
+
+	/**
+	 * What kind of place is this?
+	 * 
+	 * @return the kind
+	 */
+	PlaceKind kind() {
+		return owner.allPlaceKinds.get(store.kind[id]);
+	}
+
+	/**
+	 * How dangerous is it to stay here?
+	 * 
+	 * @return the transmissivity, per tick
+	 */
+	double transmissivity() {
+		return store.transmissivity[id];
+	}
+
+	/**
+	 * Who is here?
+	 * 
+	 * @param i -- the index of an occupant, from 0 to occupantCount() - 1
+	 * @return the occupant
 	 */
-	public Place(PlaceKind k, Double t) {
-		kind = k;
-		transmissivity = t;
+	Person occupant(int i) {
+		return store.occupants[store.start[id] + i];
+	}
+
+	/**
+	 * How many occupants is there room for?
+	 * 
+	 * @return the room, which is as many as were linked to this place
+	 */
+	int capacity() {
+		return store.capacity[id];
 	}
 
 	/**
@@ -35,10 +76,27 @@ public class Place {
 	 * @param time when the arrival happens
 	 * @param p    the person involved
 	 */
-	void arrive(double time, Person p) {
-		if (p.isContageous())
+	void arrive(long time, Person p) {
+		arrive(time, p, p.isContageous());
+	}
+
+	/**
+	 * a person arrives at a place, contageous or not
+	 * 
+	 * @param time when the arrival happens
+	 * @param p    the person involved
+	 * @param c    whether they were contageous when they set out
+	 * @see TimeWarpSimulator, where people may be in other partitions
+	 */
+	void arrive(long time, Person p, boolean c) {
+		if (c)
 			contageous(time, +1);
-		occupants.add(p);
+		final int n = store.count[id];
+		add(p);
+		if (owner.occupancy != null)
+			counted(time, n, store.contageous[id]);
+		if (owner.hazardClock)
+			p.hazardRate(time, hazard());
 	}
 
 	/**
@@ -47,24 +105,370 @@ public class Place {
 	 * @param time when the departure happens
 	 * @param p    the person involved
 	 */
-	void depart(double time, Person p) {
-		occupants.remove(p);
-		if (p.isContageous())
+	void depart(long time, Person p) {
+		depart(time, p, p.isContageous());
+	}
+
+	/**
+	 * a person departs from a place, contageous or not
+	 * 
+	 * @param time when the departure happens
+	 * @param p    the person involved
+	 * @param c    whether they were contageous when they left
+	 */
+	void depart(long time, Person p, boolean c) {
+		if (owner.hazardClock)
+			p.leaveHazard(time);
+		final int n = store.count[id];
+		remove(p);
+		if (owner.occupancy != null)
+			counted(time, n, store.contageous[id]);
+		if (c)
 			contageous(time, -1);
 	}
 
+	/**
+	 * everyone leaves at once, nobody being contageous
+	 * 
+	 * @see Person#skipMoves
+	 */
+	void empty() {
+		final int s = store.start[id];
+		for (int i = s; i < s + store.count[id]; i++)
+			store.occupants[i].slot(id, -1);
+		Arrays.fill(store.occupants, s, s + store.count[id], null);
+		store.count[id] = 0;
+	}
+
+	/**
+	 * add an occupant, remembering where they are in occupants
+	 * 
+	 * @param p -- the person
+	 */
+	void add(Person p) {
+		final int n = store.count[id];
+		if (n == store.capacity[id])
+			store.grow(id);
+		store.occupants[store.start[id] + n] = p;
+		p.slot(id, n);
+		store.count[id] = n + 1;
+	}
+
+	/**
+	 * remove an occupant
+	 * 
+	 * @param p -- the person, who need not be here
+	 */
+	void remove(Person p) {
+		int i = indexOf(p);
+		if (i >= 0)
+			removeAt(i);
+	}
+
+	/**
+	 * find an occupant
+	 * 
+	 * @param p -- the person
+	 * @return their index among the occupants, or -1 if they are not here
+	 *         This is the slot the person keeps for this place, see
+	 *         Person.slot, which only this place changes.
+	 */
+	int indexOf(Person p) {
+		final int i = p.slot(id);
+		assert (i < 0) || (occupant(i) == p) : "slot out of date";
+		return i;
+	}
+
+	/**
+	 * remove an occupant, moving the last occupant into the gap
+	 * 
+	 * @param i -- the index of the occupant
+	 */
+	void removeAt(int i) {
+		final Person[] o = store.occupants;
+		final int s = store.start[id];
+		final int n = store.count[id] - 1;
+		store.count[id] = n;
+		Person gone = o[s + i];
+		Person last = o[s + n];
+		o[s + i] = last;
+		last.slot(id, i);
+		gone.slot(id, -1);
+		o[s + n] = null;
+	}
+
+	/**
+	 * exchange two occupants
+	 * 
+	 * @param i -- the index of one
+	 * @param j -- the index of the other
+	 */
+	void swap(int i, int j) {
+		final Person[] o = store.occupants;
+		final int s = store.start[id];
+		Person p = o[s + i];
+		o[s + i] = o[s + j];
+		o[s + i].slot(id, i);
+		o[s + j] = p;
+		p.slot(id, j);
+	}
+
+	/**
+	 * a person here can no longer be infected
+	 * 
+	 * @param time -- when they were infected
+	 * @param p    -- the person, who need not actually be here Nothing needs
+	 *             doing here, since people here who are not susceptible just
+	 *             ignore their exposure, but see WellMixedPlace.
+	 */
+	void infected(long time, Person p) {
+	}
+
 	/**
 	 * a person in this place changes contageon state
 	 * 
 	 * @param time at which contageon change happens
-	 * @param c,   +1 means became contageous, -1 means recovered or died
+	 * @param c,   +1 means became contageous, -1 means recovered or died The
+	 *             occupants are not told until the end of the instant, see
+	 *             expose, so however many changes there are at one time, they
+	 *             are told once.
+	 */
+	void contageous(long time, int c) {
+		final int k = store.contageous[id];
+		store.contageous[id] = k + c;
+		if (owner.occupancy != null)
+			counted(time, store.count[id], k);
+		if (owner.tree != null)
+			owner.tree.forget(this);
+		SimulatorStatistics stats = owner.simulator.statistics();
+		if (stats != null)
+			stats.contageons = stats.contageons + 1;
+		touch(time);
+	}
+
+	/**
+	 * tell the occupancy of this simulation of a change in who is here
+	 * 
+	 * @param time -- when
+	 * @param n    -- how many people were here before the change
+	 * @param c    -- how many of them were contageous
+	 * @see Occupancy
+	 */
+	void counted(long time, int n, int c) {
+		final int m = store.count[id];
+		owner.occupancy.change(time, store.kind[id], m - n,
+				Occupancy.exposed(m, store.contageous[id]) - Occupancy.exposed(n, c));
+	}
+
+	/**
+	 * note that the risk of infection here must be worked out again at the
+	 * end of this instant
+	 * 
+	 * @param time -- the time of the instant
+	 */
+	void touch(long time) {
+		if (!store.dirty[id]) {
+			store.dirty[id] = true;
+			owner.dirty.add(this);
+		}
+		owner.dirtyTime = time;
+	}
+
+	/**
+	 * tell the occupants the risk of infection here
+	 * 
+	 * @param time -- the instant at the end of which this is done
+	 * @see SimulationContext#endOfInstant, which calls this for each place
+	 *      whose contageon changed in that instant
 	 */
-	void contageous(double time, int c) {
-		contageous = contageous + c;
+	void expose(long time) {
+		store.dirty[id] = false;
+
+		final Person[] o = store.occupants;
+		final int s = store.start[id];
+		final int n = store.count[id];
+		if (owner.hazardClock) { // no random numbers, see Person.hazardRate
+			final double r = hazard();
+			for (int i = s; i < s + n; i++)
+				o[i].hazardRate(time, r);
+			return;
+		}
 
 		// when the number of contageous people in a place changes,
-		for (Person p : occupants) {
-			p.scheduleInfect(time, 1 / (contageous * transmissivity));
+		// A Time Warp partition may simulate a departure ahead of the
+		// straggling arrival it undoes, so the count may be negative until
+		// rollback puts it right; nobody is infected by that.
+		assert (owner.lp != null) || (store.contageous[id] >= 0)
+				: "negative contageon";
+		final double h = hazard();
+		final double mean = (h > 0.0) ? 1 / h : Double.POSITIVE_INFINITY;
+		for (int i = s; i < s + n; i++) {
+			Person p = o[i];
+			if (p.ctx == owner) {
+				p.scheduleInfect(time, mean);
+			} else { // tell them, they are in another partition
+				owner.lp.expose(time, p, mean);
+			}
+		}
+	}
+
+	/**
+	 * How great is the hazard of infection for each person here?
+	 * 
+	 * @return the rate of infection of each susceptible occupant, per tick
+	 *         This is what their hazard clocks accumulate, see
+	 *         Person.hazardRate; it is zero in places where infection is not a
+	 *         process of each occupant.
+	 */
+	double hazard() {
+		return store.contageous[id] * store.transmissivity[id];
+	}
+
+	/**
+	 * List the contageous people here
+	 * 
+	 * @param into -- where to put them, with room for every occupant
+	 * @return how many there are
+	 * @see TransmissionTree, which blames one of them for each infection
+	 */
+	int contageousOccupants(Person[] into) {
+		final Person[] o = store.occupants;
+		final int s = store.start[id];
+		final int n = store.count[id];
+		int c = 0;
+		for (int i = s; i < s + n; i++) {
+			if (o[i].isContageous()) {
+				into[c] = o[i];
+				c = c + 1;
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Which class of place is this?
+	 * 
+	 * @return the class, for checkpoints, see PlaceKind.newPlace
+	 */
+	int placeClass() {
+		return PlaceKind.densePlace;
+	}
+
+	/**
+	 * How many contageous people does this place think are here?
+	 * 
+	 * @return the count used to compute the risk of infection here
+	 * @see EventTrace, which records this
+	 */
+	int contageousCount() {
+		return store.contageous[id];
+	}
+
+	/**
+	 * How many people are here?
+	 * 
+	 * @return the number of occupants
+	 * @see EventTrace, which records this
+	 */
+	int occupantCount() {
+		return store.count[id];
+	}
+
+	/**
+	 * Write this place to a checkpoint, except for its occupants
+	 * 
+	 * @param c -- the checkpoint
+	 * @see #checkpointOccupants, which must follow once people are written
+	 */
+	void checkpoint(Checkpoint c) {
+		c.putInt(store.kind[id]);
+		c.putByte(placeClass());
+		c.putInt(capacity());
+		c.putInt(store.contageous[id]);
+	}
+
+	/**
+	 * Write the occupants of this place to a checkpoint
+	 * 
+	 * @param c -- the checkpoint
+	 */
+	void checkpointOccupants(Checkpoint c) {
+		final int n = store.count[id];
+		c.putInt(n);
+		for (int i = 0; i < n; i++)
+			c.putInt(occupant(i).id);
+	}
+
+	/**
+	 * Make a place again from a checkpoint, as yet with no occupants
+	 * 
+	 * @param ctx -- the simulation being restored
+	 * @param c   -- the checkpoint
+	 * @see #checkpoint
+	 */
+	static void restore(SimulationContext ctx, Checkpoint c) {
+		PlaceKind k = ctx.allPlaceKinds.get(c.getInt());
+		Place p = k.newPlace(c.getByte(), c.getInt());
+		p.store.contageous[p.id] = c.getInt();
+		p.restoreEvents(c);
+	}
+
+	/**
+	 * Restore this place's handles on pending events from a checkpoint
+	 * 
+	 * @param c -- the checkpoint Plain places have none, see WellMixedPlace
+	 */
+	void restoreEvents(Checkpoint c) {
+	}
+
+	/**
+	 * Put the occupants back in this place from a checkpoint
+	 * 
+	 * @param c -- the checkpoint
+	 * @see #checkpointOccupants
+	 */
+	void restoreOccupants(Checkpoint c) {
+		int n = c.getInt();
+		for (int i = 0; i < n; i++)
+			add(owner.allPeople.get(c.getInt()));
+	}
+
+	/**
+	 * The state of a place, saved for later
+	 * 
+	 * @see #save
+	 */
+	static class Saved {
+		private final int contageous;
+		private final Person[] occupants;
+
+		private Saved(Place p) {
+			contageous = p.store.contageous[p.id];
+			occupants = new Person[p.occupantCount()];
+			for (int i = 0; i < occupants.length; i++)
+				occupants[i] = p.occupant(i);
 		}
 	}
+
+	/**
+	 * Save the state of this place
+	 * 
+	 * @return the saved state
+	 */
+	Saved save() {
+		return new Saved(this);
+	}
+
+	/**
+	 * Put this place back in a saved state
+	 * 
+	 * @param s -- the saved state
+	 */
+	void restore(Saved s) {
+		store.contageous[id] = s.contageous;
+		store.dirty[id] = false;
+		empty();
+		for (Person p : s.occupants)
+			add(p);
+	}
 }
\ No newline at end of file
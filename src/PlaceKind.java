@@ -7,7 +7,7 @@ import java.util.LinkedList;
  * Categories of places
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021
+ * @version Oct. 17, 2026 each place of the class its size calls for
  * @see Place
  * @see MyRandom
  * @see MyScanner
@@ -25,37 +25,50 @@ public class PlaceKind {
 		}
 	}
 
+	// the simulation this category of place is part of
+	private final SimulationContext ctx;
+
 	// instance variables from the input
 	final String name; // the name of this category of place
 	private double median; // median population for this category
 	private double scatter;// scatter of size distribution, reduces to sigma
 	private double transmissivity; // how likely is disease transmission here
+	private int leap = 0; // places made for this many or more are tau leaped
+	private final int number; // index of this in allPlaceKinds
 
 	// instance variables developed during model elaboration
 	private double sigma; // sigma of the log normal population distribution
 	private Place unfilledPlace = null; // a place of this kind being filled
 	private int unfilledCapacity = 0; // capacity of unfilledPlace
 
+	// the classes of place, see newPlace
+	static final int densePlace = 0; // Place
+	static final int wellMixedPlace = 1; // WellMixedPlace
+	static final int smallPlace = 2; // SmallPlace
+	static final int tauLeapPlace = 3; // TauLeapPlace
+
+	// with ctx.adaptive, the sizes of place that are small or well mixed
+	static final int smallSize = 8; // and smaller
+	static final int largeSize = 64; // and larger
+
 	// a list of all the people associated with this kind of place
 	private final LinkedList<PersonSchedule> people = new LinkedList<>();
 
-	// static variables used for categories of places
-	private static LinkedList<PlaceKind> allPlaceKinds = new LinkedList<>();
-	private static final MyRandom rand = MyRandom.stream();
-
 	/**
 	 * Construct a new place category by scanning an input stream
 	 * 
+	 * @param c  -- the simulation this category is part of
 	 * @param in -- the input stream The stream must contain the category name, and
 	 *           the parameters for a log-normal distribution for the sizes. All
 	 *           specifications end with a semicolon.
 	 */
-	public PlaceKind(MyScanner in) {
+	public PlaceKind(SimulationContext c, MyScanner in) {
+		ctx = c;
 
 		name = in.getNextName("???", () -> "place with no name");
 		median = in.getNextFloat(9.9999F, () -> "place " + name + ": not followed by median");
 		scatter = in.getNextFloat(9.9999F, () -> "place " + name + " " + median + ": not followed by scatter");
-		transmissivity = (1 / Time.hour) * in.getNextFloat(9.9999F,
+		transmissivity = (1.0 / Time.hour) * in.getNextFloat(9.9999F,
 				() -> "place " + name + " " + median + " " + scatter + ": not followed by transmissivity"); // BUG:
 																											// conversion
 																											// factors
@@ -63,10 +76,14 @@ public class PlaceKind {
 																											// given in
 																											// per
 																											// hour!!!
+		if (in.tryNextLiteral(MyScanner.leap)) { // optional, see TauLeapPlace
+			leap = in.getNextInt(0, () -> this.describe() + " leap: not followed by a size");
+			leap = (int) Check.positive(leap, 1.0F, () -> this.describe() + " leap " + leap + ": non-positive size?");
+		}
 		in.getNextLiteral(MyScanner.semicolon, () -> this.describe() + ": missing semicolon");
 
 		// complain if the name is not unique
-		if (findPlaceKind(name) != null) {
+		if (findPlaceKind(ctx, name) != null) {
 			Error.warn(this.describe() + ": duplicate name");
 		}
 		// force the median to be positive
@@ -77,7 +94,8 @@ public class PlaceKind {
 		transmissivity = Check.nonNeg(transmissivity, 0.0F, () -> this.describe() + ": negative scatter?");
 
 		sigma = Math.log((scatter + median) / median);
-		allPlaceKinds.add(this); // include this in the list of all
+		number = ctx.allPlaceKinds.size();
+		ctx.allPlaceKinds.add(this); // include this in the list of all
 	}
 
 	/**
@@ -99,13 +117,74 @@ public class PlaceKind {
 	private Place findPlace() {
 		if (unfilledCapacity <= 0) { // need to make a new place
 			// make new place using a log-normal distribution for the size
-			unfilledCapacity = (int) Math.round(rand.nextLogNormal(median, sigma));
-			unfilledPlace = new Place(this, transmissivity);
+			unfilledCapacity = (int) Math.round(ctx.rand.nextLogNormal(median, sigma));
+			unfilledPlace = newPlace(classFor(unfilledCapacity), unfilledCapacity);
 		}
 		unfilledCapacity = unfilledCapacity - 1;
 		return unfilledPlace;
 	}
 
+	/**
+	 * Which class of place suits a new place?
+	 * 
+	 * @param size -- how many people the place is made for
+	 * @return the class of place, densePlace, wellMixedPlace or smallPlace
+	 *         Unless ctx.adaptive is set, this is the same for every place.
+	 *         If it is, tiny places, households, are small places with a
+	 *         fixed array of occupants, each with their own hazard clock;
+	 *         middling places also have hazard clocks, since ctx.adaptive
+	 *         turns them on for the whole simulation, but keep a dense array
+	 *         of occupants; and large places, mass gatherings, are well
+	 *         mixed, so a change there costs the same whatever the crowd.
+	 *         Whatever the simulation, places of a kind given a leap size in
+	 *         the model are tau leaped if they are made that big.
+	 */
+	private int classFor(int size) {
+		if ((leap > 0) && (size >= leap))
+			return tauLeapPlace;
+		if (ctx.wellMixed)
+			return wellMixedPlace;
+		if (!ctx.adaptive)
+			return densePlace;
+		if (size <= smallSize)
+			return smallPlace;
+		if (size >= largeSize)
+			return wellMixedPlace;
+		return densePlace;
+	}
+
+	/**
+	 * Make a new, empty place of this kind
+	 * 
+	 * @param c    -- the class of place, see classFor
+	 * @param size -- how many people the place is made for
+	 * @return the place, which is numbered and added to allPlaces and to the
+	 *         place store, with room there for size occupants
+	 * @see Place#restore, which makes places from a checkpoint
+	 */
+	Place newPlace(int c, int size) {
+		final int room = Math.max(size, 1);
+		// small places keep their occupants themselves, see SmallPlace
+		final int id = ctx.placeStore.add(number, transmissivity,
+				(c == smallPlace) ? 0 : room);
+		Place p;
+		switch (c) {
+		case wellMixedPlace:
+			p = new WellMixedPlace(ctx, id);
+			break;
+		case smallPlace:
+			p = new SmallPlace(ctx, id, room);
+			break;
+		case tauLeapPlace:
+			p = new TauLeapPlace(ctx, id);
+			break;
+		default:
+			p = new Place(ctx, id);
+		}
+		ctx.allPlaces.add(p);
+		return p;
+	}
+
 	/**
 	 * Add a person to the population of this kind of place
 	 * 
@@ -121,29 +200,47 @@ public class PlaceKind {
 	 * this, each PlaceKind knows all the people that will be associated with places
 	 * of that kind, a list constructed by populate(). This calls findPlace to
 	 * create or find places.
+	 * 
+	 * @param ctx -- the simulation whose people are distributed
 	 */
-	public static void distributePeople() {
+	public static void distributePeople(SimulationContext ctx) {
 
 		// for each kind of place
-		for (PlaceKind pk : allPlaceKinds) {
+		for (PlaceKind pk : ctx.allPlaceKinds) {
 			// shuffle its people to break correlations from people to places
-			Collections.shuffle(pk.people, MyRandom.stream);
+			Collections.shuffle(pk.people, ctx.rand);
 
 			// for each person, associate that person with a specific place
 			for (PersonSchedule ps : pk.people) {
 				ps.person.emplace(pk.findPlace(), ps.schedule);
 			}
 		}
+		ctx.placeStore.trim(); // no more places will be made
+	}
+
+	/**
+	 * Are any places tau leaped?
+	 * 
+	 * @param ctx -- the simulation in which to look
+	 * @return true if any kind of place in the model has a leap size
+	 */
+	public static boolean anyLeaping(SimulationContext ctx) {
+		for (PlaceKind pk : ctx.allPlaceKinds) {
+			if (pk.leap > 0)
+				return true;
+		}
+		return false;
 	}
 
 	/**
 	 * Find a category of place, by name
 	 * 
-	 * @param n -- the name of the category
+	 * @param ctx -- the simulation in which to look
+	 * @param n   -- the name of the category
 	 * @return the PlaceKind with that name, or null if none has been defined
 	 */
-	public static PlaceKind findPlaceKind(String n) {
-		for (PlaceKind pk : allPlaceKinds) {
+	public static PlaceKind findPlaceKind(SimulationContext ctx, String n) {
+		for (PlaceKind pk : ctx.allPlaceKinds) {
 			if (pk.name.equals(n))
 				return pk;
 		}
@@ -0,0 +1,132 @@
+// PlaceStore.java
+
+import java.util.Arrays;
+
+/**
+ * The state common to all places, kept in arrays indexed by place id
+ *
+ * A model may have millions of homes. Were each place to hold its kind,
+ * transmissivity, contageon count and occupants itself, each would be an
+ * object with its own header and its own array of occupants, scattered
+ * through the heap. Here, each of these is one primitive array with one
+ * entry per place, and the occupants of all places share one array, each
+ * place having the part of it from start to start + capacity. What is left
+ * in a Place object is its identity, its partition and the behavior of its
+ * class.
+ *
+ * Each place's share of occupants is as big as the number of people
+ * linked to it, so no place should outgrow it during simulation; were one
+ * to, its occupants would be moved to a bigger share at the end of
+ * occupants. Places in different partitions of a parallel simulation touch
+ * disjoint entries, so one store serves them all, but only so long as no
+ * array is replaced; once the store is sealed, a place outgrowing its
+ * share is a fatal error rather than a race.
+ *
+ * @version Oct. 17, 2026 sealed while partitions share it
+ * @see Place
+ * @see PlaceKind#newPlace
+ */
+class PlaceStore {
+	// how many places there are
+	int size = 0;
+
+	// per place, indexed by id
+	int[] kind = new int[16]; // index of its PlaceKind in allPlaceKinds
+	double[] transmissivity = new double[16]; // how dangerous it is here
+	int[] contageous = new int[16]; // how many infectious people are here
+	int[] start = new int[16]; // where its occupants begin in occupants
+	int[] capacity = new int[16]; // how many occupants it has room for
+	int[] count = new int[16]; // how many people are here
+	boolean[] dirty = new boolean[16]; // contageous changed in this instant
+
+	// the occupants of all places, see start
+	Person[] occupants = new Person[64];
+	private int used = 0; // the part of occupants given to places
+	private boolean sealed = false; // shared by partitions, see seal
+
+	/**
+	 * Add a place
+	 *
+	 * @param k    -- the index of its kind in allPlaceKinds
+	 * @param t    -- its transmissivity
+	 * @param room -- how many occupants it needs room for
+	 * @return the id of the new place
+	 */
+	int add(int k, double t, int room) {
+		assert !sealed : "place added to a sealed store";
+		if (size == kind.length) {
+			final int n = Math.max(2 * size, 16);
+			kind = Arrays.copyOf(kind, n);
+			transmissivity = Arrays.copyOf(transmissivity, n);
+			contageous = Arrays.copyOf(contageous, n);
+			start = Arrays.copyOf(start, n);
+			capacity = Arrays.copyOf(capacity, n);
+			count = Arrays.copyOf(count, n);
+			dirty = Arrays.copyOf(dirty, n);
+		}
+		final int id = size;
+		size = size + 1;
+		kind[id] = k;
+		transmissivity[id] = t;
+		start[id] = allocate(room);
+		capacity[id] = room;
+		return id;
+	}
+
+	/**
+	 * Let go of the room for places and occupants not used
+	 *
+	 * This is called once all the places of a model are made.
+	 */
+	void trim() {
+		assert !sealed : "sealed store trimmed";
+		kind = Arrays.copyOf(kind, size);
+		transmissivity = Arrays.copyOf(transmissivity, size);
+		contageous = Arrays.copyOf(contageous, size);
+		start = Arrays.copyOf(start, size);
+		capacity = Arrays.copyOf(capacity, size);
+		count = Arrays.copyOf(count, size);
+		dirty = Arrays.copyOf(dirty, size);
+		occupants = Arrays.copyOf(occupants, used);
+	}
+
+	/**
+	 * Forbid replacing any array, as partitions are about to share them
+	 *
+	 * @see ParallelSimulator#partition
+	 */
+	void seal() {
+		sealed = true;
+	}
+
+	/**
+	 * Give a place more room for occupants
+	 *
+	 * @param id -- the place, which is full
+	 */
+	void grow(int id) {
+		if (sealed) // another thread may be using occupants
+			Error.fatal("place " + id + " outgrew its " + capacity[id]
+					+ " occupants in a parallel simulation");
+		final int room = Math.max(2 * capacity[id], 1);
+		final int s = allocate(room);
+		System.arraycopy(occupants, start[id], occupants, s, count[id]);
+		Arrays.fill(occupants, start[id], start[id] + count[id], null);
+		start[id] = s;
+		capacity[id] = room;
+	}
+
+	/**
+	 * Take some of occupants for a place
+	 *
+	 * @param room -- how much
+	 * @return where it starts
+	 */
+	private int allocate(int room) {
+		if (used + room > occupants.length)
+			occupants = Arrays.copyOf(occupants, Math.max(2 * occupants.length, used + room));
+		final int s = used;
+		used = used + room;
+		return s;
+	}
+}
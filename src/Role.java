@@ -1,12 +1,13 @@
 // Role.java
 
 import java.util.LinkedList;
+import java.util.TreeSet;
 
 /**
  * People in the simulated community each have a role
  * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
+ * @version Oct. 17, 2026 roles kept per simulation, move times found
  * @see Person
  * @see PlaceSchedule
  * @see MyRandom
@@ -33,18 +34,15 @@ public class Role {
 	private double fraction; // fraction of the population in this role
 	private int number; // number of people in this role
 
-	// static variables used for summary of all roles
-	private static double sum = 0.0F; // sum of all the fractions
-	private static LinkedList<Role> allRoles = new LinkedList<Role>();
-
 	/**
 	 * Construct a new role by scanning an input stream
 	 * 
-	 * @param in -- the input stream The stream must contain the role name, and the
-	 *           number or fraction of the population in that role. All role
-	 *           specifications end with a semicolon.
+	 * @param ctx -- the simulation this role is part of
+	 * @param in  -- the input stream The stream must contain the role name, and the
+	 *            number or fraction of the population in that role. All role
+	 *            specifications end with a semicolon.
 	 */
-	public Role(MyScanner in) {
+	public Role(SimulationContext ctx, MyScanner in) {
 		PlaceKind homePlaceKind = null; // the home place for this role
 
 		name = in.getNextName("???", () -> "role with no name");
@@ -55,7 +53,7 @@ public class Role {
 		while (hasNext && !in.tryNextLiteral(MyScanner.semicolon)) {
 
 			String placeName = in.getNextName("???", () -> "role " + name + " " + fraction + ": place name expected");
-			PlaceKind pk = PlaceKind.findPlaceKind(placeName);
+			PlaceKind pk = PlaceKind.findPlaceKind(ctx, placeName);
 			Schedule s = null;
 
 			// is placeName followed a schedule?
@@ -100,12 +98,12 @@ public class Role {
 			Error.warn(this.describe() + ": missing semicolon?");
 
 		// complain if the name is not unique
-		if (findRole(name) != null) {
+		if (findRole(ctx, name) != null) {
 			Error.warn(this.describe() + ": role name reused?");
 		}
 		// force the fraction or population to be positive
 		fraction = Check.positive(fraction, 0.0F, () -> this.describe() + ": negative population?");
-		sum = sum + fraction;
+		ctx.roleSum = ctx.roleSum + fraction;
 
 		// complain if no places for this role
 		if (homePlaceKind == null) {
@@ -115,7 +113,7 @@ public class Role {
 			Error.warn(this.describe() + ": has no places?");
 		}
 
-		allRoles.add(this); // include this role in the list of all roles
+		ctx.allRoles.add(this); // include this role in the list of all roles
 	}
 
 	/**
@@ -130,44 +128,98 @@ public class Role {
 	/**
 	 * Find a role, by name
 	 * 
-	 * @param n -- the name of the role
+	 * @param ctx -- the simulation in which to look
+	 * @param n   -- the name of the role
 	 * @return the role with that name, or null if none has been defined
 	 */
-	private static Role findRole(String n) {
-		for (Role r : allRoles) {
+	private static Role findRole(SimulationContext ctx, String n) {
+		for (Role r : ctx.allRoles) {
 			if (r.name.equals(n))
 				return r;
 		}
 		return null; // role not found
 	}
 
+	/**
+	 * Find the times of day at which anyone might move
+	 * 
+	 * @param ctx -- the simulation in which to look
+	 * @return the distinct start and end times of all schedules, sorted, in
+	 *         ticks after midnight. Between these times nobody moves, which
+	 *         is the lookahead used by ParallelSimulator.
+	 */
+	static long[] moveTimes(SimulationContext ctx) {
+		TreeSet<Long> times = new TreeSet<>();
+		for (Role r : ctx.allRoles) {
+			for (PlaceSchedule ps : r.placeKinds) {
+				if (ps.schedule != null) {
+					times.add(ps.schedule.startTime % Time.day);
+					times.add((ps.schedule.startTime + ps.schedule.duration) % Time.day);
+				}
+			}
+		}
+		long[] result = new long[times.size()];
+		int i = 0;
+		for (long t : times)
+			result[i++] = t;
+		return result;
+	}
+
+	/**
+	 * Number a schedule of this role, for a checkpoint
+	 * 
+	 * @param s -- the schedule
+	 * @return its position among the places of this role
+	 * @see #schedule
+	 */
+	int scheduleNumber(Schedule s) {
+		int i = 0;
+		for (PlaceSchedule ps : placeKinds) {
+			if (ps.schedule == s)
+				return i;
+			i = i + 1;
+		}
+		return -1; // never happens, every person's schedule is in its role
+	}
+
+	/**
+	 * Find a schedule of this role by number, restoring a checkpoint
+	 * 
+	 * @param i -- the number given by scheduleNumber
+	 * @return the schedule
+	 */
+	Schedule schedule(int i) {
+		return placeKinds.get(i).schedule;
+	}
+
 	/**
 	 * Create the total population, divided up by roles in
 	 * 
+	 * @param ctx        -- the simulation to populate
 	 * @param population -- the total population to be created
 	 * @param infected   -- the total number of initially infected people The math
 	 *                   here divides the population in the ratio of the numbers
 	 *                   given for each role. It is critical that this not be done
 	 *                   until all roles are known.
 	 */
-	public static void populateRoles(int population, int infected) {
+	public static void populateRoles(SimulationContext ctx, int population, int infected) {
 		int pop = population; // working copy used only in infection decisions
 		int inf = infected; // working copy used only in infection decisions
-		final MyRandom rand = MyRandom.stream;
+		final MyRandom rand = ctx.rand;
 
-		if (allRoles.isEmpty())
+		if (ctx.allRoles.isEmpty())
 			Error.fatal("no roles specified");
-		for (Role r : allRoles) {
+		for (Role r : ctx.allRoles) {
 			// how many people are in this role
-			r.number = (int) Math.round((r.fraction / r.sum) * population);
+			r.number = (int) Math.round((r.fraction / ctx.roleSum) * population);
 
 			// make that many people and infect the right number at random
 			for (int i = 0; i < r.number; i++) {
-				Person p = new Person(r);
+				Person p = new Person(ctx, r);
 
 				// the ratio inf/pop is probability this person is infected
 				if (rand.nextFloat() < ((float) inf / (float) pop)) {
-					p.infect(0.0);
+					p.infect(0);
 					inf = inf - 1;
 				}
 				pop = pop - 1;
@@ -182,6 +234,6 @@ public class Role {
 
 		// finish putting people in their places
 		// this actually creates the places and puts people in them
-		PlaceKind.distributePeople();
+		PlaceKind.distributePeople(ctx);
 	}
 }
\ No newline at end of file
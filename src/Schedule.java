@@ -4,7 +4,7 @@
  * Tuple of start and end times used for scheduling people's visits to places
  * 
  * @author Douglas W. Jones
- * @version Apr. 10, 2021 augmented per MP10 to support likelihood of travel
+ * @version Oct. 17, 2026 hours read in double precision
  * @see Person
  * @see Place
  * @see MyScanner for the tools used to read schedules
@@ -15,13 +15,10 @@
  */
 public class Schedule {
 	// instance variables
-	public final double startTime; // times are in seconds anno midnight
-	public final double duration; // duration of visit
+	public final long startTime; // times are in ticks anno midnight
+	public final long duration; // duration of visit
 	public final double likelihood;// probability this visit will take place
 
-	// source of randomness
-	static final MyRandom rand = MyRandom.stream;
-
 	/**
 	 * construct a new Schedule
 	 * 
@@ -32,11 +29,13 @@ public class Schedule {
 	 */
 	public Schedule(MyScanner in, MyScanner.Message context) {
 
-		// get start time of schedule
-		final double st = in.getNextFloat(23.98F, () -> context.myString() + "(: not followed by start time");
+		// get start and end times of schedule, in hours; these are read as
+		// doubles, not floats, since a float is off by a tick or more when
+		// it is turned into ticks, and rounded to ticks only once, below
+		final double st = in.getNextDouble(23.98, () -> context.myString() + "(: not followed by start time");
 		in.getNextLiteral(MyScanner.dash, () -> context.myString() + "(" + st + ": not followed by -");
 		// get end time of schedule
-		final double et = in.getNextFloat(23.99F, () -> context.myString() + "(" + st + "-: not followed by end time");
+		final double et = in.getNextDouble(23.99, () -> context.myString() + "(" + st + "-: not followed by end time");
 
 		final double lh; // likelihood of move taking place
 		if (!in.tryNextLiteral(MyScanner.endParen)) {
@@ -61,8 +60,8 @@ public class Schedule {
 		if (lh > 1.0) {
 			Error.warn(context.myString() + "(" + st + "-" + et + " " + lh + "): likelihood cannot be over 1.0");
 		}
-		startTime = st * Time.hour;
-		duration = (et * Time.hour) - startTime;
+		startTime = Time.ticks(st * Time.hour);
+		duration = Time.ticks(et * Time.hour) - startTime;
 		likelihood = lh;
 	}
 
@@ -74,12 +73,12 @@ public class Schedule {
 	public boolean overlap(Schedule s) {
 		if (s == null)
 			return false;
-		double thisEnd = this.startTime + this.duration;
+		long thisEnd = this.startTime + this.duration;
 		if (this.startTime <= s.startTime) {
 			if (s.startTime <= (this.startTime + this.duration))
 				return true;
 		}
-		double sEnd = s.startTime + s.duration;
+		long sEnd = s.startTime + s.duration;
 		if (s.startTime <= this.startTime) {
 			if (this.startTime <= (s.startTime + s.duration))
 				return true;
@@ -91,32 +90,31 @@ public class Schedule {
 	 * commit a person to following a schedule regarding a place
 	 * 
 	 * @param person
-	 * @param place  this starts the logical process of making a person follow this
-	 *               schedule
+	 * @param which  the number of this schedule among the person's schedules
+	 *               this starts the logical process of making a person follow
+	 *               this schedule
+	 * @return the daily recurring event that keeps the person on schedule
 	 */
-	public void apply(Person person, Place place) {
-		Simulator.schedule(startTime, (double t) -> go(t, person, place));
+	public Simulator.Event apply(Person person, int which) {
+		return person.ctx.simulator.schedulePeriodic(startTime, Time.day, EventKind.go, person.id, which);
 	}
 
 	/**
 	 * keep a person on schedule
 	 * 
 	 * @param person
-	 * @param place  this continues a logical process of moving a person on this
-	 *               schedule
+	 * @param place  where the schedule takes the person
+	 * @param which  the number of this schedule among the person's schedules
+	 *               this continues a logical process of moving a person on
+	 *               this schedule, the event that called this recurs daily
 	 */
-	private void go(double time, Person person, Place place) {
-		double tomorrow = time + Time.day;
-
-		// first, ensure that we keep following this schedule
-		Simulator.schedule(tomorrow, (double t) -> go(t, person, place));
-
-		if (rand.nextFloat() < likelihood) {
-			// second, make the person go there if they take the trip
+	void go(long time, Person person, Place place, int which) {
+		if (person.ctx.rand.nextFloat() < likelihood) {
+			// first, make the person go there if they take the trip
 			person.travelTo(time, place);
 
-			// third, make sure we get home if we took the trip
-			Simulator.schedule(time + duration, (double t) -> person.goHome(t));
+			// second, make sure we get home if we took the trip
+			person.setTrip(which, person.ctx.simulator.schedule(time + duration, EventKind.goHome, person.id, which));
 		}
 	}
 
@@ -127,6 +125,7 @@ public class Schedule {
 	 *         given in hours from midnight
 	 */
 	public String toString() {
-		return "(" + startTime / Time.hour + "-" + (startTime + duration) / Time.hour + " " + likelihood + ")";
+		return "(" + (double) startTime / Time.hour + "-" + (double) (startTime + duration) / Time.hour + " " + likelihood
+				+ ")";
 	}
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+// SimulationContext.java
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * All of the mutable state of one simulation
+ * 
+ * @version Oct. 16, 2026
+ * @see Simulator for the pending event set
+ * @see Person for the people and population statistics
+ * @see PlaceKind for the categories of places
+ * @see Role for the roles people play
+ * @see MyRandom for the source of randomness Nothing that changes during model
+ *      building or simulation is static; it all hangs off one of these. As a
+ *      result, any number of independent simulations can be built and run in
+ *      one JVM, each on its own thread. Each is built from its own reading of
+ *      the model file, and each has its own random number stream.
+ */
+public class SimulationContext implements Simulator.Dispatcher {
+	// the simulation framework
+	final Simulator simulator = new Simulator();
+
+	// people on the move, null unless this is a partition of a parallel
+	// simulation, see Person.travelTo
+	final ArrayList<Person> outbox;
+
+	// the logical process simulating this partition of a Time Warp
+	// simulation, null if this is not one, see TimeWarpSimulator
+	TimeWarpSimulator.Process lp = null;
+
+	// the record of events dispatched, null unless wanted, see EventTrace
+	EventTrace trace = null;
+
+	// who infected whom, null unless wanted, see TransmissionTree
+	TransmissionTree tree = null;
+
+	// person-hours in each kind of place, null unless wanted, see Occupancy
+	Occupancy occupancy = null;
+
+	// the one source of randomness for this simulation
+	final MyRandom rand;
+
+	// where the reports go
+	final PrintStream out;
+
+	// the people, each person's id is its index here
+	final ArrayList<Person> allPeople;
+
+	// the places, in order of creation
+	final ArrayList<Place> allPlaces;
+
+	// the state of the places, indexed like allPlaces
+	final PlaceStore placeStore;
+
+	// the population in each disease state, indexed by state ordinal
+	final int[] population = new int[Person.diseaseStateCount];
+
+	// timing characteristics of disease states, see Person
+	InfectionRule latent;
+	InfectionRule asymptomatic;
+	InfectionRule symptomatic;
+	InfectionRule bedridden;
+
+	// the places whose contageon changed in the current instant, and when
+	final ArrayList<Place> dirty = new ArrayList<>();
+	long dirtyTime = 0;
+
+	// infection is a process of each place, see WellMixedPlace
+	boolean wellMixed = false;
+
+	// infection by hazard clocks, see Person.hazardRate
+	boolean hazardClock = false;
+
+	// choose the class of each place by size, see PlaceKind.classFor
+	boolean adaptive = false;
+
+	// skip moves while nobody is contageous, and whether now skipping them,
+	// see Person.skipMoves
+	boolean fastForward = false;
+	boolean skipping = false;
+
+	// the categories of places and the roles people play
+	final LinkedList<PlaceKind> allPlaceKinds;
+	final LinkedList<Role> allRoles;
+	double roleSum = 0.0F; // sum of the fractions of all roles
+
+	/**
+	 * Construct a new, empty, simulation context
+	 * 
+	 * @param r -- the random number stream for this simulation
+	 * @param o -- where the reports go
+	 */
+	public SimulationContext(MyRandom r, PrintStream o) {
+		rand = r;
+		out = o;
+		allPeople = new ArrayList<>();
+		allPlaces = new ArrayList<>();
+		placeStore = new PlaceStore();
+		allPlaceKinds = new LinkedList<>();
+		allRoles = new LinkedList<>();
+		outbox = null;
+		simulator.useDispatcher(this);
+		simulator.useEndOfInstant(this::endOfInstant);
+	}
+
+	/**
+	 * Construct one partition of an already built simulation
+	 * 
+	 * @param model -- the simulation whose model this shares
+	 * @param r     -- the random number stream for this partition
+	 * @see ParallelSimulator The partition starts with no people in its
+	 *      population statistics and no pending events; people join it by
+	 *      migrating.
+	 */
+	SimulationContext(SimulationContext model, MyRandom r) {
+		rand = r;
+		out = model.out;
+		allPeople = model.allPeople;
+		allPlaces = model.allPlaces;
+		placeStore = model.placeStore;
+		allPlaceKinds = model.allPlaceKinds;
+		allRoles = model.allRoles;
+		latent = model.latent;
+		asymptomatic = model.asymptomatic;
+		symptomatic = model.symptomatic;
+		bedridden = model.bedridden;
+		roleSum = model.roleSum;
+		wellMixed = model.wellMixed;
+		hazardClock = model.hazardClock;
+		adaptive = model.adaptive;
+		if (model.occupancy != null)
+			occupancy = new Occupancy(this);
+		outbox = new ArrayList<>();
+		simulator.useDispatcher(this);
+		simulator.useEndOfInstant(this::endOfInstant);
+	}
+
+	/**
+	 * Tell the occupants of each place whose contageon changed in the instant
+	 * just finished their new risk of infection, then, if fast forwarding
+	 * and nobody is contageous, stop moving people
+	 * 
+	 * @see Place#contageous
+	 * @see Simulator#useEndOfInstant
+	 */
+	void endOfInstant() {
+		for (Place p : dirty)
+			p.expose(dirtyTime);
+		dirty.clear();
+		if (fastForward && !skipping && !Person.anyContageous(this))
+			Person.skipMoves(this, simulator.now());
+	}
+
+	/**
+	 * Simulate a coded event by passing it on to class Person, then trace it
+	 * 
+	 * @see Person#dispatch
+	 */
+	public void dispatch(long time, EventKind kind, int subject, int target) {
+		Person.dispatch(this, time, kind, subject, target);
+		if (trace != null)
+			trace.record(time, kind, subject);
+	}
+}
@@ -1,24 +1,43 @@
 // Simulator.java
 
-import java.util.PriorityQueue;
-
 /** Framework for discrete event simulation
+ *  <p>Each instance is an independent simulation with its own pending
+ *  event set, so many simulations may run at once on different threads.
+ *  <p>Times are counts of ticks, see <code>Time</code>, so events meant to
+ *  be simultaneous are exactly simultaneous.
  *  @author  Douglas W. Jones
- *  @version Apr. 19, 2021 Better information hiding for reschedule, cancel.
+ *  @version Oct. 16, 2026 Pluggable event set, coded and recurring events,
+ *                        time in integer ticks.
+ *  @see PendingEventSet
+ *  @see SimulationContext
  */
 class Simulator {
-    private Simulator() {} // prevent construction of instances!  Don't call!
+    /** Construct a simulator with an empty default pending event set
+     */
+    public Simulator() {}
 
     /** Functional interface for scheduling actions to be done later
      *  <p> Users will generally never mention Action or trigger because,
      *  when a value implementing this interface is needed, it will usually
      *  take the form of a lambda expression like this:
      *  <pre>
-     *  (double t)-&gt; someMethod( t, otherParameters )
+     *  (long t)-&gt; someMethod( t, otherParameters )
      *  </pre>
      */
     public static interface Action {
-	void trigger( double time );
+	void trigger( long time );
+    }
+
+    /** Interface for the one place where coded events are simulated
+     *  <p>Most events in a big simulation are of a few kinds, each acting
+     *  on a subject and perhaps a target identified by number.  Such
+     *  events can be scheduled as an <code>EventKind</code> plus numbers,
+     *  with no lambda, and they are all handed to the dispatcher, which
+     *  will typically be a switch on the kind.
+     *  @see EventKind
+     */
+    public static interface Dispatcher {
+	void dispatch( long time, EventKind kind, int subject, int target );
     }
 
     /** Event is the parent of real events scheduled in the simulator
@@ -30,27 +49,157 @@ class Simulator {
     public static class Event {}
 
     /** RealEvents scheduled in the simulation framework
+     *  <p>The fields after <code>act</code> belong to whatever
+     *  <code>PendingEventSet</code> holds the event; nobody else may
+     *  touch them.
      */
-    private static class RealEvent extends Event {
-	public double time;       // when will this event occur
-	public final Action act;  // what to do then
-	public RealEvent( double t, Action a ) {
+    static class RealEvent extends Event {
+	public long time;         // when will this event occur, in ticks
+	public long seq;          // breaks ties between simultaneous events
+	public Action act;        // what to do then, null for coded events
+	public EventKind kind;    // for coded events, what to do then
+	public int subject;       // for coded events, who or what to do it to
+	public int target;        // and, if needed, who or what to do it with
+	public long period = 0;   // for recurring events, time between them
+	public boolean suspended = false; // recurring event is not to recur
+	public boolean series = false; // ever recurring, so never recycled
+	public int slot = -1;     // index in a heap, -1 if not in one
+	public EventList list;    // list holding this event, null if none
+	public RealEvent next;    // neighbors in that list
+	public RealEvent prev;
+	public RealEvent( long t, Action a ) {
 	    time = t;
 	    act = a;
 	}
+
+	/** Does this event come before another?
+	 *  <p>Simultaneous events come in the order they were scheduled, so
+	 *  the order of events never depends on the pending event set.
+	 *  @param e  the other event
+	 *  @return true if this event must be simulated first
+	 */
+	public boolean before( RealEvent e ) {
+	    return (time < e.time) || ((time == e.time) && (seq < e.seq));
+	}
     }
 
     // the pending event set, holding all scheduled but not triggered events
-    private static final PriorityQueue<RealEvent> eventSet
-	= new PriorityQueue<>(
-	    ( RealEvent e1, RealEvent e2 )-> Double.compare( e1.time, e2.time )
-	);
+    private PendingEventSet eventSet = new HeapEventSet();
+
+    // who handles coded events
+    private Dispatcher dispatcher = null;
+
+    // the number of events ever put in eventSet, used to number them
+    private long sequence = 0;
+
+    // the time of the most recent event, and a request to stop running
+    private long now = 0;
+    private boolean paused = false;
+
+    // coded events that have been simulated, available for reuse
+    // these are linked through their next fields
+    private RealEvent free = null;
+
+    // the event being simulated, if any, and whether it was resumed as it
+    // ran, see resume
+    private RealEvent running = null;
+    private boolean rearmed = false;
+
+    // the batch of simultaneous events being simulated, grouped by kind
+    // batch[0] holds Action events, batch[k.ordinal()+1] coded events of k
+    private final EventList[] batch = new EventList[EventKind.values().length + 1];
+    {
+	for (int i = 0; i < batch.length; i++) batch[i] = new EventList();
+    }
+    private final EventList drained = new EventList(); // staging for batch
+
+    // instrumentation, null unless wanted
+    private SimulatorStatistics stats = null;
+
+    // what to do when all the events of an instant are done, if anything
+    private Runnable endOfInstant = null;
+
+    /** Which group of the batch does an event belong to?
+     *  @param e  the event
+     *  @return the index of its group in batch
+     */
+    private static int group( RealEvent e ) {
+	return (e.kind == null) ? 0 : e.kind.ordinal() + 1;
+    }
+
+    /** Take an event out of the batch or the pending event set
+     *  @param re  the event
+     *  @return true if it was in either
+     */
+    private boolean unschedule( RealEvent re ) {
+	if ((re.list != null) && (re.list == batch[group( re )])) {
+	    re.list.unlink( re );
+	    return true;
+	}
+	return eventSet.remove( re );
+    }
+
+    /** Number an event in the order of scheduling and make it pending
+     *  @param e  the event
+     */
+    private void enqueue( RealEvent e ) {
+	assert e.time >= now: "event scheduled in the past";
+	e.seq = sequence;
+	sequence = sequence + 1;
+	eventSet.add( e );
+	if (stats != null) stats.schedule( e.time, now );
+    }
+
+    /** Select the implementation of the pending event set
+     *  <p>This must be called before any events are scheduled.
+     *  @param s  the (empty) pending event set to use from now on
+     */
+    public void useEventSet( PendingEventSet s ) {
+	assert eventSet.isEmpty(): "events already scheduled";
+	eventSet = s;
+    }
+
+    /** Select who will simulate coded events
+     *  <p>This must be called before any coded events are simulated.
+     *  @param d  the dispatcher
+     */
+    public void useDispatcher( Dispatcher d ) {
+	dispatcher = d;
+    }
+
+    /** Select what to do at the end of each instant
+     *  <p>This is done once all the events at some time have been
+     *  simulated, before any later event, so that work made necessary by
+     *  many simultaneous events can be done just once.  It may schedule
+     *  more events, even at the same time; those form another batch, after
+     *  which it is done again.  It is also done whenever
+     *  <code>runUntil</code> finishes without being paused, for the sake
+     *  of changes made from outside the simulator between runs.
+     *  @param r  what to do, or null for nothing
+     */
+    public void useEndOfInstant( Runnable r ) {
+	endOfInstant = r;
+    }
+
+    /** Start counting what this simulator does
+     *  @param s  where to count it
+     */
+    public void useStatistics( SimulatorStatistics s ) {
+	stats = s;
+    }
+
+    /** @return where this simulator counts what it does, or null if it
+     *  does not
+     */
+    public SimulatorStatistics statistics() {
+	return stats;
+    }
 
     /** Schedule an event to occur at a future time
      *  <p>Typically, users schedule events using a lambda expression for
      *  the action to be take at the scheduled time, for example:
      *  <pre>
-     *    Simulator.schedule( now+later, (double t)-> whatToDo( t, stuff ) );
+     *    sim.schedule( now+later, (long t)-> whatToDo( t, stuff ) );
      *  </pre>
      *  <p>It is important that the time of the event be passed as a lambda
      *  parameter to the action.
@@ -60,44 +209,485 @@ class Simulator {
      *  @param a, what to do for that event
      *  @returns a handle on the scheduled event
      */
-    public static Event schedule( double t, Action a ) {
+    public Event schedule( long t, Action a ) {
 	RealEvent e = new RealEvent( t, a );
-	eventSet.add( e );
+	enqueue( e );
 	return e; // the RealEvent is returned as an Event, minus all detail
     }
 
+    /** Schedule a coded event to occur at a future time
+     *  <p>This is the fast path for the common events of a simulation;
+     *  it allocates nothing, because the event records of coded events
+     *  are recycled once they have been simulated.  As a result, the
+     *  handle returned must be forgotten once the event is simulated;
+     *  cancelling or rescheduling it after that could disturb some
+     *  unrelated event.
+     *  @param t  the time of the event
+     *  @param k  the kind of event
+     *  @param s  the subject of the event
+     *  @param g  the target of the event, or zero if the kind needs none
+     *  @returns a handle on the scheduled event
+     *  @see Dispatcher
+     */
+    public Event schedule( long t, EventKind k, int s, int g ) {
+	RealEvent e = coded( t, k, s, g );
+	enqueue( e );
+	return e;
+    }
+
+    /** Get an event record for a coded event, recycling one if possible
+     *  @param t  the time of the event
+     *  @param k  the kind of event
+     *  @param s  the subject of the event
+     *  @param g  the target of the event
+     *  @returns the event record, not yet scheduled
+     */
+    private RealEvent coded( long t, EventKind k, int s, int g ) {
+	RealEvent e = free;
+	if (e == null) {
+	    e = new RealEvent( t, null );
+	} else {
+	    free = e.next;
+	    e.next = null;
+	    e.time = t;
+	}
+	e.kind = k;
+	e.subject = s;
+	e.target = g;
+	return e;
+    }
+
+    /** Schedule an event to recur periodically
+     *  <p>The event recurs at times t, t+p, t+2p and so on until it is
+     *  cancelled or suspended.  The same event record is put back in the
+     *  pending event set each time, so nothing is allocated per occurrence.
+     *  The handle returned stays valid for the life of the series.
+     *  @param t  the time of the first occurrence
+     *  @param p  the period, which must be positive
+     *  @param a  what to do at each occurrence
+     *  @returns a handle on the series
+     */
+    public Event schedulePeriodic( long t, long p, Action a ) {
+	assert p > 0: "non-positive period";
+	RealEvent e = new RealEvent( t, a );
+	e.period = p;
+	e.series = true;
+	enqueue( e );
+	return e;
+    }
+
+    /** Schedule a coded event to recur periodically
+     *  <p>This is like the above, except that the event is coded.
+     *  Unlike other coded events, the handle stays valid for the life of
+     *  the series.
+     *  @param t  the time of the first occurrence
+     *  @param p  the period, which must be positive
+     *  @param k  the kind of event
+     *  @param s  the subject of the event
+     *  @param g  the target of the event, or zero if the kind needs none
+     *  @returns a handle on the series
+     */
+    public Event schedulePeriodic(
+	long t, long p, EventKind k, int s, int g
+    ) {
+	assert p > 0: "non-positive period";
+	RealEvent e = coded( t, k, s, g );
+	e.period = p;
+	e.series = true;
+	enqueue( e );
+	return e;
+    }
+
     /** Cancel a previously scheduled event.
      *  <p>Note that nothing happens if the event being cancelled has
-     *  already been simulated or has not been scheduled.
+     *  already been simulated or has not been scheduled,
+     *  and it is not counted as cancelled.
+     *  Cancelling a recurring event ends the series for good, even if this
+     *  is done by the event itself as it occurs; the record of a series is
+     *  never recycled, so the handle may still be used, to no effect.
      *  @param e  the event to cancel
      */
-    public static void cancel( Event e ) {
+    public void cancel( Event e ) {
 	RealEvent re = (RealEvent)e; // This is not free, but it's cheap
 				     // only pay this price if we cancel
-	eventSet.remove( re );
+	final boolean pending = unschedule( re );
+	if (re.period > 0) {
+	    re.suspended = true;
+	    re.period = 0; // so it can never be resumed
+	}
+	if (pending && (stats != null)) stats.cancelled = stats.cancelled + 1;
+    }
+
+    /** Suspend a recurring event.
+     *  <p>The series stops recurring, but it may be resumed later.
+     *  This may be done by the event itself as it occurs.
+     *  @param e  the recurring event
+     */
+    public void suspend( Event e ) {
+	RealEvent re = (RealEvent)e;
+	assert re.period > 0: "not a recurring event";
+	unschedule( re );
+	re.suspended = true;
+    }
+
+    /** Resume a suspended recurring event.
+     *  <p>Note that nothing happens if the event is not suspended.
+     *  If this is done by the event itself as it occurs, after suspending
+     *  itself, the event is put back in the pending event set once it is
+     *  done, at the time given here instead of one period on.
+     *  @param e  the recurring event
+     *  @param t  the time of its next occurrence
+     */
+    public void resume( Event e, long t ) {
+	RealEvent re = (RealEvent)e;
+	if (re.suspended && (re.period > 0)) {
+	    re.suspended = false;
+	    re.time = t;
+	    if (re == running) {
+		rearmed = true; // simulate puts it back, once
+	    } else {
+		enqueue( re );
+	    }
+	}
     }
 
     /** Re-schedule a previously scheduled event.
      *  <p>Note that nothing happens if the event being rescheduled has
      *  already been simulated or has not been scheduled.
      */
-    public static void reschedule( Event e, double t ) {
+    public void reschedule( Event e, long t ) {
 	RealEvent re = (RealEvent)e; // This is not free, but it's cheap
 				     // only pay this price if we reschedule
-	if (eventSet.remove( re )) {
+	assert t >= now: "event rescheduled into the past";
+	re.seq = sequence; // this counts as scheduling it anew
+	sequence = sequence + 1;
+	final boolean pending;
+	if ((re.list != null) && (re.list == batch[group( re )])) {
+	    // it was about to happen now, so it is no longer simultaneous
+	    re.list.unlink( re );
 	    re.time = t;
 	    eventSet.add( re );
+	    pending = true;
+	} else {
+	    pending = eventSet.reschedule( re, t );
+	}
+	if (pending && (stats != null)) stats.reschedule( t, now );
+    }
+
+    /** Take a pending event out of this simulator, to hand it over to
+     *  another with <code>adopt</code>
+     *  <p>Until it is adopted, the event is pending nowhere, and it must
+     *  not be cancelled or rescheduled.  Nothing happens if the event is
+     *  not pending here.
+     *  @param e  the event
+     *  @return true if it was pending here
+     */
+    public boolean release( Event e ) {
+	return unschedule( (RealEvent)e );
+    }
+
+    /** Make an event released by another simulator pending here
+     *  <p>The event keeps its time and, if periodic, its period, but
+     *  counts as newly scheduled here.
+     *  @param e  the event
+     */
+    public void adopt( Event e ) {
+	enqueue( (RealEvent)e );
+    }
+
+    /** Discard all pending events
+     *  <p>This ends the simulation for good, because <code>run</code>
+     *  returns when there are no pending events.
+     */
+    public void clear() {
+	while (!eventSet.isEmpty()) cancel( eventSet.peek() );
+	for (EventList l: batch) while (l.head != null) cancel( l.head );
+    }
+
+    /** Simulate one event
+     *  @param e  the event, just taken from the batch
+     */
+    private void simulate( RealEvent e ) {
+	now = e.time;
+	running = e;
+	rearmed = false;
+	if (e.kind == null) {
+	    e.act.trigger( now );
+	} else {
+	    dispatcher.dispatch( now, e.kind, e.subject, e.target );
+	}
+	running = null;
+	if (e.period > 0) { // recurring, so re-arm it unless suspended
+	    if (!e.suspended) {
+		if (!rearmed) e.time = e.time + e.period;
+		enqueue( e );
+	    }
+	} else if ((e.kind != null) && !e.series) { // recycle the record
+	    e.next = free;
+	    e.suspended = false;
+	    free = e;
+	}
+    }
+
+    /** Get the current simulated time
+     *  @return the time of the event most recently simulated
+     */
+    public long now() {
+	return now;
+    }
+
+    /** Get the time of the next event
+     *  @return the time of the earliest pending event, or
+     *  <code>Long.MAX_VALUE</code> if none
+     */
+    public long nextTime() {
+	RealEvent e = eventSet.peek();
+	return (e == null) ? Long.MAX_VALUE : e.time;
+    }
+
+    /** The pending events and clock of a simulator, saved for later
+     *  <p>Events are saved field by field, so the event objects themselves
+     *  may go on being used, rescheduled or recycled; restoring puts them
+     *  back as they were.  Suspended events are not pending, so they are
+     *  not saved.
+     *  @see #save
+     *  @see #restore
+     */
+    static class Saved {
+	private final RealEvent[] events;
+	private final long[] times;
+	private final long[] seqs;
+	private final Action[] acts;
+	private final EventKind[] kinds;
+	private final int[] subjects;
+	private final int[] targets;
+	private final long[] periods;
+	private final long now;
+	private final long sequence;
+
+	private Saved( Simulator s ) {
+	    int n = s.eventSet.size();
+	    events = new RealEvent[n];
+	    times = new long[n];
+	    seqs = new long[n];
+	    acts = new Action[n];
+	    kinds = new EventKind[n];
+	    subjects = new int[n];
+	    targets = new int[n];
+	    periods = new long[n];
+	    int[] i = { 0 };
+	    s.eventSet.forEach( (RealEvent e)-> {
+		events[i[0]] = e;
+		times[i[0]] = e.time;
+		seqs[i[0]] = e.seq;
+		acts[i[0]] = e.act;
+		kinds[i[0]] = e.kind;
+		subjects[i[0]] = e.subject;
+		targets[i[0]] = e.target;
+		periods[i[0]] = e.period;
+		i[0] = i[0] + 1;
+	    } );
+	    now = s.now;
+	    sequence = s.sequence;
+	}
+    }
+
+    /** Save the pending events and clock
+     *  <p>This must not be called while a batch of events is being
+     *  simulated, that is, only from outside <code>run</code> and
+     *  its relatives or after they have been paused and returned.
+     *  @return the saved state
+     */
+    public Saved save() {
+	return new Saved( this );
+    }
+
+    /** Put the pending events and clock back as they were when saved
+     *  <p>Events scheduled since then are forgotten, as if cancelled.
+     *  @param s  the saved state
+     */
+    public void restore( Saved s ) {
+	while (eventSet.poll() != null) {} // forget everything
+	free = null; // some saved events may have been recycled
+	for (int i = 0; i < s.events.length; i++) {
+	    RealEvent e = s.events[i];
+	    e.time = s.times[i];
+	    e.seq = s.seqs[i];
+	    e.act = s.acts[i];
+	    e.kind = s.kinds[i];
+	    e.subject = s.subjects[i];
+	    e.target = s.targets[i];
+	    e.period = s.periods[i];
+	    e.suspended = false;
+	    e.slot = -1;
+	    e.list = null;
+	    eventSet.add( e );
+	}
+	now = s.now;
+	sequence = s.sequence;
+    }
+
+    /** Write the clock and pending events to a checkpoint
+     *  <p>Each event is numbered as it is written, so that handles on it
+     *  can be saved.  As with <code>save</code>, this must not be called
+     *  while a batch of events is being simulated.
+     *  @param c  the checkpoint
+     */
+    void checkpoint( Checkpoint c ) {
+	c.putLong( now );
+	c.putLong( sequence );
+	c.putInt( eventSet.size() );
+	eventSet.forEach( (RealEvent e)-> {
+	    if (e.kind == null) Error.fatal( "cannot checkpoint action events" );
+	    c.numberEvent( e );
+	    c.putLong( e.time );
+	    c.putLong( e.seq );
+	    c.putByte( e.kind.ordinal() );
+	    c.putInt( e.subject );
+	    c.putInt( e.target );
+	    c.putLong( e.period );
+	} );
+    }
+
+    /** Read the clock and pending events back from a checkpoint
+     *  <p>The pending event set must be empty.  Each event keeps its
+     *  sequence number, so simultaneous events keep their order.
+     *  @param c  the checkpoint
+     */
+    void restore( Checkpoint c ) {
+	assert eventSet.isEmpty(): "events already scheduled";
+	final EventKind[] kinds = EventKind.values();
+	now = c.getLong();
+	sequence = c.getLong();
+	final RealEvent[] events = new RealEvent[c.getInt()];
+	for (int i = 0; i < events.length; i++) {
+	    final long t = c.getLong();
+	    final long seq = c.getLong();
+	    final EventKind k = kinds[c.getByte()];
+	    final int s = c.getInt();
+	    final int g = c.getInt();
+	    RealEvent e = coded( t, k, s, g );
+	    e.seq = seq;
+	    e.period = c.getLong();
+	    e.series = e.period > 0;
+	    eventSet.add( e );
+	    events[i] = e;
+	}
+	c.setEvents( events );
+    }
+
+    /** Pause the simulation
+     *  <p>Typically, this is called by an event; <code>run</code>,
+     *  <code>runUntil</code> or <code>step</code> will return as soon as
+     *  that event is done, leaving the remaining events pending so the
+     *  simulation can be resumed by calling one of them again.
+     */
+    public void pause() {
+	paused = true;
+    }
+
+    /** Take the earliest events from the pending event set as a batch
+     *  <p>The batch holds all the events at the earliest time, grouped by
+     *  kind, and within each group in the order they were scheduled.
+     *  The pending event set must not be empty.
+     */
+    private void drain() {
+	eventSet.pollSimultaneous( drained );
+	int n = 0;
+	long t = drained.head.time;
+	while (drained.head != null) {
+	    RealEvent e = drained.removeFirst();
+	    batch[group( e )].append( e );
+	    n = n + 1;
+	}
+	if (stats != null) stats.batch( t, n, eventSet.size() );
+    }
+
+    /** Simulate the batch of simultaneous events
+     *  <p>Events in the batch may be cancelled or rescheduled by earlier
+     *  events in the batch.  If the simulation is paused or the limit
+     *  is reached, the rest of the batch goes back in the pending event
+     *  set, each event keeping its sequence number, and the next
+     *  <code>drain</code> groups them by kind again.  So they are
+     *  simulated in the order <code>run</code> would have simulated them,
+     *  unless the events already simulated scheduled more at the same
+     *  time: <code>run</code> leaves those for the next batch, while here
+     *  they join the regrouped rest of this one, ahead of any of the rest
+     *  in later groups.
+     *  @param limit  the maximum number of events to simulate
+     *  @return the number of events actually simulated
+     */
+    private int simulateBatch( int limit ) {
+	int n = 0;
+	for (EventList l: batch) {
+	    while (l.head != null) {
+		if (paused || (n >= limit)) { // put the rest back
+		    RealEvent e = l.removeFirst();
+		    eventSet.add( e ); // without renumbering
+		} else {
+		    RealEvent e = l.removeFirst();
+		    if (stats != null) stats.simulated[group( e )]++;
+		    simulate( e );
+		    n = n + 1;
+		}
+	    }
 	}
+	return n;
+    }
+
+    /** Finish the instant just simulated, if all its events are done
+     */
+    private void endInstant() {
+	if (paused || (endOfInstant == null)) return;
+	RealEvent e = eventSet.peek();
+	if ((e == null) || (e.time > now)) endOfInstant.run();
     }
 
     /** Run the simulation
      *  Before running the simulation, schedule the initial events
      *  all of the simulation occurs as side effects of scheduled events
+     *  This returns when there are no more events or when paused.
+     */
+    public void run() {
+	paused = false;
+	while (!paused && !eventSet.isEmpty()) {
+	    drain();
+	    simulateBatch( Integer.MAX_VALUE );
+	    endInstant();
+	}
+    }
+
+    /** Run the simulation up to some time
+     *  <p>This simulates all events up to and including time t, and
+     *  then returns, leaving later events pending.  It returns early if
+     *  paused.
+     *  @param t  the time to run until
+     */
+    public void runUntil( long t ) {
+	paused = false;
+	while (!paused) {
+	    RealEvent e = eventSet.peek();
+	    if ((e == null) || (e.time > t)) break;
+	    drain();
+	    simulateBatch( Integer.MAX_VALUE );
+	    endInstant();
+	}
+	if (!paused && (endOfInstant != null)) endOfInstant.run();
+    }
+
+    /** Simulate a limited number of events
+     *  <p>This returns early if there are no more events or if paused.
+     *  @param n  the maximum number of events to simulate
+     *  @return the number of events actually simulated
      */
-    public static void run() {
-	while (!eventSet.isEmpty()) {
-	    RealEvent e = eventSet.remove();
-	    e.act.trigger( e.time );
+    public int step( int n ) {
+	paused = false;
+	int i = 0;
+	while ((i < n) && !paused && !eventSet.isEmpty()) {
+	    drain();
+	    i = i + simulateBatch( n - i );
+	    endInstant();
 	}
+	return i;
     }
 }
\ No newline at end of file
@@ -0,0 +1,266 @@
+// SimulatorStatistics.java
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** Instrumentation of the simulation framework
+ *  <p>A simulator given one of these with
+ *  <code>Simulator.useStatistics</code> counts the events it simulates by
+ *  kind, and the events scheduled, cancelled and rescheduled; it also
+ *  keeps histograms of the size of the pending event set, taken once per
+ *  batch of simultaneous events, and of how far ahead events are
+ *  scheduled.  A simulator with none pays only a test for null.
+ *  <p>The same figures are available to JDK Flight Recorder as the custom
+ *  events below, in category Epidemic.  Batch events are recorded as they
+ *  happen, and are only allocated while JFR records them; the rest when
+ *  the summary is printed.
+ *  <p>One instance of this class is used by one simulator, on one thread.
+ *  Several can be summarized together, as with the partitions of a
+ *  parallel simulation; see <code>part</code>.
+ *  @version Oct. 17, 2026 events never to happen counted apart
+ *  @see Simulator#useStatistics
+ */
+class SimulatorStatistics {
+    // events simulated, [0] Action events, [k.ordinal()+1] coded events of k
+    final long[] simulated = new long[EventKind.values().length + 1];
+    long scheduled = 0;   // events put in the pending event set
+    long cancelled = 0;
+    long rescheduled = 0;
+    long batches = 0;     // batches of simultaneous events
+    long never = 0;       // events scheduled for Time.never, not in ahead
+    long contageons = 0;  // changes of contageon at places, see Place
+
+    // tau leaping, see TauLeapPlace
+    long leaps = 0;             // steps taken with anyone exposed
+    long leapInfections = 0;    // infections drawn in those steps
+    double leapExpected = 0.0;  // the expected infections of those steps
+    double leapHazard = 0.0;    // the exact integral of the infection rate
+
+    // histograms, bucket i counts values v with 2**(i-1) <= v < 2**i
+    final long[] depth = new long[Long.SIZE + 1]; // pending events, per batch
+    final long[] ahead = new long[Long.SIZE + 1]; // seconds, per scheduling
+
+    // other instances summarized with this one, see part
+    private final ArrayList<SimulatorStatistics> parts = new ArrayList<>();
+
+    /** JFR event for each batch of simultaneous events
+     */
+    @Name( "epidemic.Batch" )
+    @Label( "Event Batch" )
+    @Category( "Epidemic" )
+    @Description( "Simultaneous events simulated together" )
+    @StackTrace( false )
+    static class BatchEvent extends jdk.jfr.Event {
+	@Label( "Simulated Time" ) @Timespan( Timespan.SECONDS )
+	long time;
+	@Label( "Events" )
+	int events;
+	@Label( "Pending Events" )
+	int pending;
+    }
+
+    // whether BatchEvent is being recorded, asked before allocating one
+    private static final EventType batchType =
+	EventType.getEventType( BatchEvent.class );
+
+    /** JFR event for the number of events of one kind simulated
+     */
+    @Name( "epidemic.EventKindCount" )
+    @Label( "Events Simulated by Kind" )
+    @Category( "Epidemic" )
+    @StackTrace( false )
+    static class KindEvent extends jdk.jfr.Event {
+	@Label( "Kind" )
+	String kind;
+	@Label( "Events" )
+	long events;
+    }
+
+    /** JFR event for the totals at the end of the run
+     */
+    @Name( "epidemic.Totals" )
+    @Label( "Simulation Totals" )
+    @Category( "Epidemic" )
+    @StackTrace( false )
+    static class TotalsEvent extends jdk.jfr.Event {
+	@Label( "Scheduled" )
+	long scheduled;
+	@Label( "Cancelled" )
+	long cancelled;
+	@Label( "Rescheduled" )
+	long rescheduled;
+	@Label( "Batches" )
+	long batches;
+	@Label( "Contageon Changes" )
+	long contageons;
+    }
+
+    /** Which bucket of a histogram does a value go in?
+     *  @param v  the value, not negative
+     *  @return the index of the bucket
+     */
+    private static int bucket( long v ) {
+	return Long.SIZE - Long.numberOfLeadingZeros( v );
+    }
+
+    /** Make another instance to be summarized along with this one
+     *  <p>This is for simulators that run at the same time as the one
+     *  using this, on other threads; each needs its own.
+     *  @return the new instance
+     */
+    SimulatorStatistics part() {
+	SimulatorStatistics s = new SimulatorStatistics();
+	parts.add( s );
+	return s;
+    }
+
+    /** Record that an event was scheduled
+     *  @param t  when it is to happen
+     *  @param now  the current time
+     */
+    void schedule( long t, long now ) {
+	scheduled = scheduled + 1;
+	ahead( t, now );
+    }
+
+    /** Record that a pending event was rescheduled
+     *  @param t  when it is to happen
+     *  @param now  the current time
+     */
+    void reschedule( long t, long now ) {
+	rescheduled = rescheduled + 1;
+	ahead( t, now );
+    }
+
+    /** Record how far ahead an event was scheduled
+     *  <p>Events that will never happen, such as infections of people
+     *  nobody is exposing, are counted apart, so as not to fill a bucket
+     *  of the histogram some 2**51 seconds ahead.
+     *  @param t  when it is to happen
+     *  @param now  the current time
+     */
+    private void ahead( long t, long now ) {
+	if (t >= Time.never) {
+	    never = never + 1;
+	} else {
+	    ahead[bucket( (t - now) / Time.second )]++;
+	}
+    }
+
+    /** Record a batch of simultaneous events
+     *  @param time  when they happen
+     *  @param events  how many there are
+     *  @param pending  how many events remain pending
+     */
+    void batch( long time, int events, int pending ) {
+	batches = batches + 1;
+	depth[bucket( pending )]++;
+
+	if (batchType.isEnabled()) {
+	    BatchEvent e = new BatchEvent();
+	    e.time = time / Time.second;
+	    e.events = events;
+	    e.pending = pending;
+	    e.commit();
+	}
+    }
+
+    /** Add the figures of another instance to this one
+     *  @param s  the other instance
+     */
+    private void add( SimulatorStatistics s ) {
+	for (int i = 0; i < simulated.length; i++) {
+	    simulated[i] = simulated[i] + s.simulated[i];
+	}
+	scheduled = scheduled + s.scheduled;
+	cancelled = cancelled + s.cancelled;
+	rescheduled = rescheduled + s.rescheduled;
+	batches = batches + s.batches;
+	never = never + s.never;
+	contageons = contageons + s.contageons;
+	leaps = leaps + s.leaps;
+	leapInfections = leapInfections + s.leapInfections;
+	leapExpected = leapExpected + s.leapExpected;
+	leapHazard = leapHazard + s.leapHazard;
+	for (int i = 0; i < depth.length; i++) {
+	    depth[i] = depth[i] + s.depth[i];
+	    ahead[i] = ahead[i] + s.ahead[i];
+	}
+    }
+
+    /** Print a histogram, one line per nonempty bucket
+     *  @param out  where to print it
+     *  @param h  the histogram
+     */
+    private static void printHistogram( PrintStream out, long[] h ) {
+	for (int i = 0; i < h.length; i++) {
+	    if (h[i] == 0) continue;
+	    long lo = (i == 0) ? 0 : 1L << (i - 1);
+	    out.printf( "  %12d - %-12d %d\n", lo, (1L << i) - 1, h[i] );
+	}
+    }
+
+    /** Print the end-of-run summary and record it for JFR
+     *  <p>This includes the figures of all parts, which must have stopped.
+     *  @param out  where to print it
+     *  @param seconds  how long the run took, in real time
+     */
+    void print( PrintStream out, double seconds ) {
+	SimulatorStatistics s = new SimulatorStatistics();
+	s.add( this );
+	for (SimulatorStatistics p: parts) s.add( p );
+
+	long total = 0;
+	for (long n: s.simulated) total = total + n;
+	out.printf( "events simulated %d in %.3f s, %.0f per second\n",
+	    total, seconds, total / seconds
+	);
+	for (int i = 0; i < s.simulated.length; i++) {
+	    String kind = (i == 0)
+		? "action"
+		: EventKind.values()[i - 1].toString();
+	    out.printf( "  %-12s %d\n", kind, s.simulated[i] );
+
+	    KindEvent e = new KindEvent();
+	    e.kind = kind;
+	    e.events = s.simulated[i];
+	    e.commit();
+	}
+	out.printf( "scheduled %d, cancelled %d, rescheduled %d\n",
+	    s.scheduled, s.cancelled, s.rescheduled
+	);
+	if (s.contageons > 0) {
+	    out.printf( "contageon changes %d, %.2f reschedules each\n",
+		s.contageons, (double)s.rescheduled / s.contageons
+	    );
+	}
+	if (s.leaps > 0) {
+	    out.printf( "tau leaping %d steps, %d infections, %.2f expected\n",
+		s.leaps, s.leapInfections, s.leapExpected
+	    );
+	    out.printf( "  exact hazard %.2f, error of leaping %+.2f%%\n",
+		s.leapHazard, 100 * (s.leapExpected - s.leapHazard) / s.leapHazard
+	    );
+	}
+	out.printf( "pending events at each of %d batches\n", s.batches );
+	printHistogram( out, s.depth );
+	out.printf( "seconds ahead events were scheduled\n" );
+	printHistogram( out, s.ahead );
+	if (s.never > 0) out.printf( "  %-27s %d\n", "never", s.never );
+
+	TotalsEvent e = new TotalsEvent();
+	e.scheduled = s.scheduled;
+	e.cancelled = s.cancelled;
+	e.rescheduled = s.rescheduled;
+	e.batches = s.batches;
+	e.contageons = s.contageons;
+	e.commit();
+    }
+}
@@ -0,0 +1,131 @@
+// SimulatorTest.java
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/** Checks that stepping a simulation gives the same order of events
+ *  <p>A batch of simultaneous events is simulated grouped by kind; when
+ *  <code>step</code> stops part way through a batch, the rest goes back
+ *  in the pending event set, keeping its sequence numbers, and is grouped
+ *  by kind again by the next step.  This checks that stepping one event
+ *  at a time through batches of mixed kinds dispatches them in the same
+ *  order as <code>run</code>, for each pending event set.
+ *  <p>It also checks that only events still pending are counted as
+ *  cancelled or rescheduled, and that events scheduled for
+ *  <code>Time.never</code> are kept out of the histogram of how far ahead
+ *  events are scheduled.
+ *  <p>Usage: java -ea SimulatorTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026 checks what statistics count
+ *  @see Simulator#step
+ *  @see SimulatorStatistics
+ */
+class SimulatorTest {
+    private static final int events = 200; // events in each run
+    private static final long[] times = { 0, 5, 5, 5, 9 }; // mostly a batch
+
+    /** Schedule the same events, in the same order, in a simulator
+     *  <p>Every event is logged as it is simulated; none schedules more.
+     *  @param s  the simulator
+     *  @param seed  which events to schedule
+     *  @param log  where to log them
+     */
+    private static void populate( Simulator s, long seed, ArrayList<String> log ) {
+	final EventKind[] kinds = EventKind.values();
+	final Random r = new Random( seed );
+	s.useDispatcher(
+	    (long t, EventKind k, int subject, int target)->
+		log.add( t + " " + k + " " + subject )
+	);
+	for (int i = 0; i < events; i++) {
+	    final long t = times[r.nextInt( times.length )];
+	    final int id = i;
+	    if (r.nextInt( 8 ) == 0) {
+		s.schedule( t, (long time)-> log.add( time + " action " + id ) );
+	    } else {
+		s.schedule( t, kinds[r.nextInt( kinds.length )], id, 0 );
+	    }
+	}
+    }
+
+    /** Check one pending event set
+     *  @param name  its name, for the report
+     *  @param set  makes an empty one
+     *  @param n  how many events to step at a time
+     */
+    private static void check(
+	String name, Supplier<PendingEventSet> set, int n
+    ) {
+	for (long seed = 0; seed < 20; seed++) {
+	    final ArrayList<String> ran = new ArrayList<>();
+	    final Simulator a = new Simulator();
+	    a.useEventSet( set.get() );
+	    populate( a, seed, ran );
+	    a.run();
+
+	    final ArrayList<String> stepped = new ArrayList<>();
+	    final Simulator b = new Simulator();
+	    b.useEventSet( set.get() );
+	    populate( b, seed, stepped );
+	    while (b.step( n ) > 0) {}
+
+	    if (!ran.equals( stepped ) || (ran.size() != events)) {
+		Error.fatal( name + " step(" + n + ") seed " + seed
+		    + ": order differs from run()"
+		);
+	    }
+	}
+	System.out.println( name + " step(" + n + "): same order as run()" );
+    }
+
+    /** Check what a simulator using one pending event set counts
+     *  @param name  its name, for the report
+     *  @param set  makes an empty one
+     */
+    private static void checkCounts(
+	String name, Supplier<PendingEventSet> set
+    ) {
+	final Simulator s = new Simulator();
+	s.useEventSet( set.get() );
+	final SimulatorStatistics stats = new SimulatorStatistics();
+	s.useStatistics( stats );
+	final Simulator.Event done = s.schedule( 1, (long time)-> {} );
+	final Simulator.Event later = s.schedule( Time.hour, (long time)-> {} );
+	s.schedule( Time.never, (long time)-> {} );
+	s.step( 1 ); // done is simulated, so it is no longer pending
+	s.cancel( done );
+	s.reschedule( done, 2 );
+	s.reschedule( later, 2 * Time.hour );
+	s.cancel( later );
+
+	long ahead = 0;
+	for (long n: stats.ahead) ahead = ahead + n;
+	if ((stats.scheduled != 3) || (stats.cancelled != 1)
+	||  (stats.rescheduled != 1) || (stats.never != 1) || (ahead != 3)) {
+	    Error.fatal( name + ": scheduled " + stats.scheduled
+		+ " cancelled " + stats.cancelled
+		+ " rescheduled " + stats.rescheduled
+		+ " never " + stats.never + " ahead " + ahead
+		+ ", not 3, 1, 1, 1 and 3"
+	    );
+	}
+	System.out.println( name + ": counts only pending events" );
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	for (int n: new int[] { 1, 3 }) {
+	    check( "heap", ()-> new HeapEventSet(), n );
+	    check( "calendar", ()-> new CalendarQueue(), n );
+	    check( "ladder", ()-> new LadderQueue(), n );
+	    check( "wheel", ()-> new TwoTierEventSet(), n );
+	}
+	checkCounts( "heap", ()-> new HeapEventSet() );
+	checkCounts( "calendar", ()-> new CalendarQueue() );
+	checkCounts( "ladder", ()-> new LadderQueue() );
+	checkCounts( "wheel", ()-> new TwoTierEventSet() );
+    }
+}
@@ -0,0 +1,116 @@
+// SmallPlace.java
+
+import java.util.Arrays;
+
+/**
+ * Places for a handful of people, such as households
+ * 
+ * Most places in a model are homes of a few people, and most of the
+ * bookkeeping of a place is wasted on them. Here, the occupants are kept in
+ * a fixed array of the place's own, as big as the place, and are found by
+ * scanning it, which for a few people is quicker than remembering and
+ * checking their slot. Only their count is kept in the store, so a small
+ * place takes no share of the store's occupants and never grows it, even
+ * while partitions share the store. Each occupant keeps their own hazard
+ * clock, so the risk of infection here is exact and costs no random
+ * numbers.
+ * 
+ * These are only made with -adaptive, which turns hazard clocks on for
+ * every place, not just these.
+ * 
+ * @version Oct. 17, 2026 occupants kept in an array of its own
+ * @see Place
+ * @see PlaceKind#classFor
+ * @see Person#hazardRate
+ */
+class SmallPlace extends Place {
+	// the occupants, the first store.count[id] of them
+	private Person[] here;
+
+	/**
+	 * Construct a new small place
+	 * 
+	 * @param c    -- the simulation that owns it
+	 * @param i    -- its id, already added to the store with no room
+	 * @param room -- how many occupants it is made for
+	 */
+	SmallPlace(SimulationContext c, int i, int room) {
+		super(c, i);
+		here = new Person[room];
+	}
+
+	@Override
+	Person occupant(int i) {
+		return here[i];
+	}
+
+	@Override
+	int capacity() {
+		return here.length;
+	}
+
+	@Override
+	void add(Person p) {
+		final int n = store.count[id];
+		if (n == here.length) // it was made too small; the array is ours
+			here = Arrays.copyOf(here, Math.max(2 * n, 1));
+		here[n] = p;
+		store.count[id] = n + 1;
+	}
+
+	@Override
+	int indexOf(Person p) {
+		for (int i = 0; i < store.count[id]; i++) {
+			if (here[i] == p)
+				return i;
+		}
+		return -1; // not here
+	}
+
+	@Override
+	void removeAt(int i) {
+		final int n = store.count[id] - 1;
+		store.count[id] = n;
+		here[i] = here[n];
+		here[n] = null;
+	}
+
+	@Override
+	void swap(int i, int j) {
+		final Person p = here[i];
+		here[i] = here[j];
+		here[j] = p;
+	}
+
+	@Override
+	void empty() {
+		Arrays.fill(here, 0, store.count[id], null);
+		store.count[id] = 0;
+	}
+
+	@Override
+	void expose(long time) {
+		assert owner.hazardClock : "small place without hazard clocks";
+		store.dirty[id] = false;
+		final double r = hazard();
+		for (int i = 0; i < store.count[id]; i++)
+			here[i].hazardRate(time, r);
+	}
+
+	@Override
+	int contageousOccupants(Person[] into) {
+		int c = 0;
+		for (int i = 0; i < store.count[id]; i++) {
+			if (here[i].isContageous()) {
+				into[c] = here[i];
+				c = c + 1;
+			}
+		}
+		return c;
+	}
+
+	@Override
+	int placeClass() {
+		return PlaceKind.smallPlace;
+	}
+}
@@ -0,0 +1,97 @@
+// TauLeapPlace.java
+
+/**
+ * Places so crowded that infection there is simulated in fixed steps
+ *
+ * A well mixed place with thousands of occupants and many of them
+ * contageous has infections so often that simulating each one floods the
+ * pending event set. Here, while anyone here is exposed, the place takes a
+ * step every step ticks. At each step, it looks at who is here: with c
+ * contageous, transmissivity t and s susceptible, each susceptible is
+ * infected in the step with probability 1-exp(-c*t*step), so the number
+ * infected is drawn from a binomial distribution and that many susceptible
+ * occupants are picked, without replacement. This is tau leaping; it is
+ * approximate, since whatever happens between steps is not seen.
+ *
+ * Places of a kind are tau leaped if the model gives the kind a leap size
+ * and they are made at least that big. If the simulator keeps statistics,
+ * the exact integral of the rate of infection here is kept too, so the
+ * end-of-run summary can report the error of leaping against the exact
+ * process.
+ *
+ * @version Oct. 16, 2026
+ * @see WellMixedPlace, the exact process
+ * @see PlaceKind#classFor
+ * @see SimulatorStatistics
+ */
+class TauLeapPlace extends WellMixedPlace {
+	// the length of a step
+	static final long step = Time.minute;
+
+	// the rate of infection here since the time since, for statistics
+	private double rate = 0.0;
+	private long since = 0;
+
+	/**
+	 * Construct a new tau leaped place
+	 *
+	 * @param c -- the simulation that owns it
+	 * @param i -- its id, already added to the store
+	 */
+	TauLeapPlace(SimulationContext c, int i) {
+		super(c, i);
+	}
+
+	@Override
+	int placeClass() {
+		return PlaceKind.tauLeapPlace;
+	}
+
+	/**
+	 * start or stop stepping, at the end of an instant
+	 *
+	 * @param time -- the instant at the end of which this is done
+	 */
+	@Override
+	void expose(long time) {
+		store.dirty[id] = false;
+		SimulatorStatistics stats = owner.simulator.statistics();
+		if (stats != null) { // integrate the rate of infection exactly
+			stats.leapHazard = stats.leapHazard + rate * (time - since);
+			rate = contageousCount() * transmissivity() * susceptible;
+			since = time;
+		}
+		if ((contageousCount() <= 0) || (susceptible == 0)) {
+			if (next != null)
+				owner.simulator.cancel(next);
+			next = null;
+		} else if (next == null) {
+			next = owner.simulator.schedule(time + step, EventKind.transmit, id, 0);
+		}
+	}
+
+	/**
+	 * take a step, infecting some of the susceptible people here
+	 *
+	 * This is a schedulable event service routine.
+	 *
+	 * @param time -- when
+	 */
+	@Override
+	void transmit(long time) {
+		next = null; // this step is over
+		touch(time); // so the next one will be scheduled
+		if ((contageousCount() <= 0) || (susceptible == 0))
+			return; // a change in this instant, not yet accounted for
+		final double p = -Math.expm1(-contageousCount() * transmissivity() * step);
+		final int n = owner.rand.nextBinomial(susceptible, p);
+		SimulatorStatistics stats = owner.simulator.statistics();
+		if (stats != null) {
+			stats.leaps = stats.leaps + 1;
+			stats.leapInfections = stats.leapInfections + n;
+			stats.leapExpected = stats.leapExpected + susceptible * p;
+		}
+		for (int i = 0; i < n; i++)
+			infectOne(time);
+	}
+}
@@ -0,0 +1,93 @@
+// TauLeapTest.java
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Checks the report that -stats gives of tau leaping
+ *  <p>In the model here, everybody spends all their time in one hall,
+ *  which is tau leaped, so every infection is drawn by a leap.  For each
+ *  of several seeds, the infections the report counts must be exactly the
+ *  infections the CSV report shows, and they must agree with the expected
+ *  infections it reports, within four standard deviations.  The error of
+ *  leaping it prints must be what its expected infections and exact hazard
+ *  give, and small, since the steps are short.  A model with no tau leaped
+ *  places must get no such report.
+ *  <p>Usage: java -ea TauLeapTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see SimulatorStatistics#print
+ *  @see TauLeapPlace
+ */
+class TauLeapTest {
+    private static final int seeds = 5;
+    private static final int population = 1000;
+    private static final int infected = 10;
+    private static final double tolerance = 1.0; // most error of leaping, %
+
+    private static final String model =
+	"population " + population + "; infected " + infected + ";\n"
+	+ "place hall 1000 0 0.00002 leap 500;\n"
+	+ "role fan 1 hall;\n"
+	+ "latent 2.0 1.5 0.1; asymptomatic 3 2.5 0.3;\n"
+	+ "symptomatic 5.5 2.5 0.9; bedridden 8 5 0.9;\n"
+	+ "end 40;\n";
+
+    // the report, see SimulatorStatistics.print
+    private static final Pattern report = Pattern.compile(
+	"tau leaping (\\d+) steps, (\\d+) infections, ([0-9.]+) expected\n"
+	+ "  exact hazard ([0-9.]+), error of leaping ([-+][0-9.]+)%\n"
+    );
+
+    /** Check the report of one run
+     *  @param file  the model
+     *  @param s  the seed
+     */
+    private static void check( String file, int s ) {
+	final String what = "seed " + s;
+	final String[] o = {};
+	final String csv = TestRun.run( TestRun.line( file, s, o ) );
+	final String stats = TestRun.run( true,
+	    TestRun.line( file, s, o, "-stats" )
+	);
+	final Matcher m = report.matcher( stats );
+	if (!m.find()) Error.fatal( what + ": no report of tau leaping" );
+	final long steps = Long.parseLong( m.group( 1 ) );
+	final long infections = Long.parseLong( m.group( 2 ) );
+	final double expected = Double.parseDouble( m.group( 3 ) );
+	final double hazard = Double.parseDouble( m.group( 4 ) );
+	final double error = Double.parseDouble( m.group( 5 ) );
+
+	final double uninfected = TestRun.last( csv )[1];
+	if ((steps <= 0) || (infections != population - infected - uninfected)) {
+	    Error.fatal( what + ": " + infections
+		+ " infections leaped, not the infections reported"
+	    );
+	}
+	if (Math.abs( infections - expected ) > 4 * Math.sqrt( expected )) {
+	    Error.fatal( what + ": " + infections + " infections leaped, "
+		+ expected + " expected"
+	    );
+	}
+	final double e = 100 * (expected - hazard) / hazard;
+	if ((Math.abs( e - error ) > 0.01) || (Math.abs( error ) > tolerance)) {
+	    Error.fatal( what + ": error of leaping " + error + "%, "
+		+ "expected " + expected + " exact " + hazard
+	    );
+	}
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( model );
+	for (int s = 0; s < seeds; s++) check( file, s );
+	System.out.println( "tau leaping: report agrees with the run" );
+
+	final String town = TestRun.model( TestRun.town( 10 ) );
+	if (TestRun.run( true, town, "-seed", "0", "-stats" ).contains( "tau" )) {
+	    Error.fatal( "tau leaping reported with no tau leaped places" );
+	}
+	System.out.println( "no tau leaping: not reported" );
+    }
+}
@@ -0,0 +1,202 @@
+// TestRun.java
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/** Support for the checks, run by make test, that simulate whole models
+ *  <p>A check writes its model to a temporary file, runs
+ *  <code>Epidemic.main</code> on it with the options being checked, and
+ *  looks at what was printed.  Temporary files are deleted on exit.  The
+ *  statistics here compare the results of different ways of simulating.
+ *  @version Oct. 17, 2026
+ *  @see Epidemic#main
+ */
+class TestRun {
+    /** A small town, where people move, some at random, and disease varies
+     *  @param end  the end of time, in days
+     *  @return the model
+     */
+    static String town( int end ) {
+	return "population 300; infected 3;\n"
+	    + "place home 4 0.5 0.002;\n"
+	    + "place work 20 1 0.001;\n"
+	    + "place school 30 0 0.002;\n"
+	    + "role worker 50 home work (8-16.5 0.9);\n"
+	    + "role pupil 30 home school (8.25-15);\n"
+	    + "role homebody 20 home;\n"
+	    + "latent 2.0 1.5 0.1; asymptomatic 3 2.5 0.3;\n"
+	    + "symptomatic 5.5 2.5 0.9; bedridden 8 5 0.9;\n"
+	    + "end " + end + ";\n";
+    }
+
+    /** Name a temporary file
+     *  @param suffix  ends its name
+     *  @return the name of a new, empty file
+     */
+    static String temp( String suffix ) {
+	try {
+	    final File f = File.createTempFile( "epidemic", suffix );
+	    f.deleteOnExit();
+	    return f.getPath();
+	} catch (IOException e) {
+	    Error.fatal( "could not make a temporary file: " + e.getMessage() );
+	    return null; // never happens, fatal does not return
+	}
+    }
+
+    /** Write a model to a temporary file
+     *  @param text  the model
+     *  @return the file name
+     */
+    static String model( String text ) {
+	final String name = temp( ".model" );
+	try (FileWriter w = new FileWriter( name )) {
+	    w.write( text );
+	} catch (IOException e) {
+	    Error.fatal( name + ": " + e.getMessage() );
+	}
+	return name;
+    }
+
+    /** Make a command line for a repeatable run
+     *  @param file  the model
+     *  @param seed  the seed
+     *  @param o  options
+     *  @param more  more options
+     *  @return the command line
+     */
+    static String[] line( String file, int seed, String[] o, String... more ) {
+	final String[] a = new String[3 + o.length + more.length];
+	a[0] = file;
+	a[1] = "-seed";
+	a[2] = "" + seed;
+	System.arraycopy( o, 0, a, 3, o.length );
+	System.arraycopy( more, 0, a, 3 + o.length, more.length );
+	return a;
+    }
+
+    /** Run the simulator, capturing what it prints
+     *  @param err  true to capture the standard error, discarding the
+     *              output, false to capture the output
+     *  @param args  the command line
+     *  @return what was printed there
+     */
+    static String run( boolean err, String... args ) {
+	final PrintStream out = System.out;
+	final PrintStream errors = System.err;
+	final ByteArrayOutputStream b = new ByteArrayOutputStream();
+	final PrintStream p = new PrintStream( b );
+	try {
+	    if (err) {
+		System.setOut( new PrintStream( OutputStream.nullOutputStream() ) );
+		System.setErr( p );
+	    } else {
+		System.setOut( p );
+	    }
+	    Epidemic.main( args );
+	} finally {
+	    p.flush();
+	    System.setOut( out );
+	    System.setErr( errors );
+	}
+	return b.toString();
+    }
+
+    /** Run the simulator, capturing its output
+     *  @param args  the command line
+     *  @return the output, the CSV report unless args say otherwise
+     */
+    static String run( String... args ) {
+	return run( false, args );
+    }
+
+    /** The final sizes of the epidemic, how many were ever infected, over
+     *  many seeds
+     *  @param file  the model
+     *  @param first  the first seed
+     *  @param seeds  how many seeds
+     *  @param o  options
+     *  @return the final size for each seed
+     */
+    static double[] finalSizes( String file, int first, int seeds, String[] o ) {
+	final double[] size = new double[seeds];
+	for (int s = 0; s < seeds; s++) {
+	    final double[] v = last( run( line( file, first + s, o ) ) );
+	    size[s] = v[2] + v[3] + v[4] + v[5] + v[6] + v[7];
+	}
+	return size;
+    }
+
+    /** @param x  some numbers
+     *  @return their mean
+     */
+    static double mean( double[] x ) {
+	double sum = 0.0;
+	for (double v: x) sum = sum + v;
+	return sum / x.length;
+    }
+
+    /** @param x  some numbers
+     *  @return the variance of their mean
+     */
+    static double varianceOfMean( double[] x ) {
+	final double m = mean( x );
+	double sum = 0.0;
+	for (double v: x) sum = sum + (v - m) * (v - m);
+	return sum / (x.length - 1) / x.length;
+    }
+
+    /** Fail unless two samples could come from the same distribution
+     *  <p>Their means must agree within four standard errors, and the
+     *  largest gap between their empirical distributions, the two sample
+     *  Kolmogorov-Smirnov statistic, must be under its critical value at
+     *  the 0.001 level.  Ties make that test conservative.
+     *  @param what  what was sampled, for the report
+     *  @param a  one sample
+     *  @param b  the other
+     */
+    static void sameDistribution( String what, double[] a, double[] b ) {
+	final double se = Math.sqrt( varianceOfMean( a ) + varianceOfMean( b ) );
+	final double[] x = a.clone();
+	final double[] y = b.clone();
+	Arrays.sort( x );
+	Arrays.sort( y );
+	double d = 0.0; // the largest gap
+	int i = 0;
+	int j = 0;
+	while ((i < x.length) && (j < y.length)) {
+	    final double v = Math.min( x[i], y[j] );
+	    while ((i < x.length) && (x[i] == v)) i = i + 1;
+	    while ((j < y.length) && (y[j] == v)) j = j + 1;
+	    d = Math.max( d,
+		Math.abs( (double)i / x.length - (double)j / y.length )
+	    );
+	}
+	final double critical = 1.949
+	    * Math.sqrt( (double)(x.length + y.length) / (x.length * y.length) );
+	System.out.printf( "%s: mean %.3f and %.3f (se %.3f), KS %.3f of %.3f\n",
+	    what, mean( a ), mean( b ), se, d, critical
+	);
+	if ((Math.abs( mean( a ) - mean( b ) ) > 4 * se) || (d > critical)) {
+	    Error.fatal( what + ": distributions differ" );
+	}
+    }
+
+    /** Get the last line of the CSV report of a run
+     *  @param report  the output of the run
+     *  @return the fields of its last line: time, then the number of people
+     *          in each disease state
+     */
+    static double[] last( String report ) {
+	final String[] lines = report.trim().split( "\n" );
+	final String[] f = lines[lines.length - 1].split( "," );
+	final double[] v = new double[f.length];
+	for (int i = 0; i < f.length; i++) v[i] = Double.parseDouble( f[i] );
+	return v;
+    }
+}
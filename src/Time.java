@@ -3,19 +3,66 @@
 /**
  * All about simulated time
  * 
+ * Simulated time is counted in ticks by a <code>long</code> clock, so times
+ * are exact: events meant to be simultaneous are, and the order of events
+ * never depends on roundoff. Times read from the model are rounded to the
+ * nearest tick as they are read, and times are only converted back to days
+ * for output.
+ * 
  * @author Douglas W. Jones
- * @version Apr. 6, 2021 lifted from Epidemic.java of that date
+ * @version Oct. 16, 2026 integer ticks
  */
 public class Time {
+	/** one tick, the resolution of the simulation clock, a millisecond */
+	public static final long tick = 1;
+
 	/** one second of simulated time */
-	public static double second = 1.0F;
+	public static final long second = 1000 * tick;
 
 	/** one minute of simulated time */
-	public static double minute = 60.0F * second;
+	public static final long minute = 60 * second;
 
 	/** one hour of simulated time */
-	public static double hour = 60.0F * minute;
+	public static final long hour = 60 * minute;
 
 	/** one day of simulated time */
-	public static double day = 24.0F * hour;
-}
\ No newline at end of file
+	public static final long day = 24 * hour;
+
+	/**
+	 * a time after the end of any simulation, for events that never happen;
+	 * it is small enough that times up to several times this do not overflow
+	 */
+	public static final long never = Long.MAX_VALUE / 4;
+
+	/**
+	 * Round a time or a delay to the nearest tick
+	 * 
+	 * @param t -- the time in ticks, possibly fractional
+	 * @return the time in whole ticks, but never more than never; this
+	 *         includes infinite and undefined times
+	 */
+	public static long ticks(double t) {
+		return (t < never) ? Math.round(t) : never;
+	}
+
+	/**
+	 * Add a random delay to a time
+	 * 
+	 * @param t -- the time
+	 * @param d -- the delay in ticks, possibly fractional, infinite or undefined
+	 * @return the time after that delay, but never more than never
+	 */
+	public static long after(long t, double d) {
+		return Math.min(t + ticks(d), never);
+	}
+
+	/**
+	 * Convert a time to days, for output
+	 * 
+	 * @param t -- the time
+	 * @return the time in days
+	 */
+	public static double days(long t) {
+		return (double) t / day;
+	}
+}
@@ -0,0 +1,578 @@
+// TimeWarpSimulator.java
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/** Optimistic parallel simulation of one model, by Time Warp
+ *  <p>This follows D. R. Jefferson's Time Warp (ACM TOPLAS 7, 3, July
+ *  1985).  Places are partitioned as in <code>ParallelSimulator</code>, but
+ *  people stay in the logical process that owns their home, and when they
+ *  are at a place owned by another process, the two talk by timestamped
+ *  messages: people arrive, depart and change contageon by message, and
+ *  places expose people to infection by message.  These messages have no
+ *  lookahead at all, so each process runs ahead optimistically, and when a
+ *  message arrives in its past, a straggler, it rolls back to a saved
+ *  state and simulates forward again.
+ *  <p>State is saved by copying, every <code>checkpointInterval</code>: the
+ *  pending events, random stream and population statistics of the
+ *  process, the disease state, location and events of its people, and the
+ *  contageon count and occupants of its places.  After a rollback, messages
+ *  sent in the undone past are only cancelled, by anti-messages, if
+ *  simulating forward again does not send the same messages; this lazy
+ *  cancellation keeps two processes from rolling each other back forever
+ *  over messages with the same timestamp.
+ *  <p>Processes run in rounds.  Between rounds, global virtual time (GVT),
+ *  the earliest time at which anything can still change, is computed;
+ *  saved states, messages and daily reports older than that are final, so
+ *  the reports are printed and the rest is discarded, which keeps memory
+ *  bounded however long the simulation runs.
+ *  <p>Simultaneous messages are simulated in the order of the rank of the
+ *  person concerned, after any moves at that time and before the other
+ *  events at that time, so the result does not depend on timing; the
+ *  output for a given seed and number of processes is repeatable.
+ *  @version Oct. 17, 2026 reports the most history kept
+ *  @see ParallelSimulator for the conservative alternative
+ *  @see Person#travelTo
+ *  @see Place#contageous
+ */
+class TimeWarpSimulator {
+    private static final long checkpointInterval = Time.day / 4;
+    private static final long window = Time.day; // how far past GVT to go
+    private static final int roundLength = 10000;  // instants per round
+
+    private final SimulationContext model; // where the model was built
+    private final Process[] lps;
+    private final long[] steps; // times of day when people may move
+    private long end;             // the time to run until
+    private int reported = 0;     // the number of daily reports printed
+
+    // statistics
+    private long rounds = 0;
+
+    /** Partition a model built sequentially into logical processes
+     *  <p>From here on, the model's own simulator is not used.
+     *  @param m  the simulation in which the model was built
+     *  @param n  the number of logical processes
+     *  @param sets  makes the pending event set for each process
+     */
+    public TimeWarpSimulator(
+	SimulationContext m, int n, Supplier<PendingEventSet> sets
+    ) {
+	model = m;
+	SimulationContext[] parts = ParallelSimulator.partition( model, n, sets );
+	steps = ParallelSimulator.syncTimes( model, parts );
+	lps = new Process[n];
+	for (int i = 0; i < n; i++) lps[i] = new Process( i, parts[i] );
+    }
+
+    // messages
+
+    private static enum Kind {
+	depart,     // person leaves place, value is 1 if contageous
+	arrive,     // person arrives at place, value is 1 if contageous
+	contageous, // person at place changes contageon by value
+	expose      // person is exposed to infection with mean delay
+    }
+
+    /** Messages between logical processes
+     *  <p>Messages are ordered by time, then by the rank of the person
+     *  concerned, then by sender, then by how many messages that sender
+     *  sent about that person at that time.  This key identifies the
+     *  message; an anti-message has the same key as the message it
+     *  cancels.
+     */
+    private static class Message implements Comparable<Message> {
+	final long time;
+	final int rank;
+	final int sender;
+	final int count;
+	final Kind kind;
+	final Place place;   // null for expose
+	final Person person;
+	final int value;
+	final double mean;   // for expose only
+	Process dest;        // where it was sent
+	boolean self;        // sent by a process to itself
+	boolean anti;        // this cancels the message with the same key
+
+	Message( long t, int r, int s, int c,
+	    Kind k, Place pl, Person p, int v, double m
+	) {
+	    time = t;
+	    rank = r;
+	    sender = s;
+	    count = c;
+	    kind = k;
+	    place = pl;
+	    person = p;
+	    value = v;
+	    mean = m;
+	}
+
+	/** Make a key that sorts before or after all messages at a time
+	 *  @param t  the time
+	 *  @param after  true to sort after them, false before
+	 *  @return the key, which is not a message
+	 */
+	static Message probe( long t, boolean after ) {
+	    int x = after ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+	    return new Message( t, x, x, x, null, null, null, 0, 0.0 );
+	}
+
+	public int compareTo( Message m ) {
+	    if (time != m.time) return (time < m.time) ? -1 : 1;
+	    if (rank != m.rank) return Integer.compare( rank, m.rank );
+	    if (sender != m.sender) return Integer.compare( sender, m.sender );
+	    return Integer.compare( count, m.count );
+	}
+
+	/** Does this message say the same thing as another with its key?
+	 *  @param m  the other message
+	 *  @return true if they are interchangeable
+	 */
+	boolean sameAs( Message m ) {
+	    return (kind == m.kind) && (place == m.place)
+		&& (person == m.person) && (value == m.value)
+		&& (mean == m.mean) && (dest == m.dest);
+	}
+
+	/** @return the anti-message for this message
+	 */
+	Message anti() {
+	    Message m = new Message(
+		time, rank, sender, count, kind, place, person, value, mean
+	    );
+	    m.anti = true;
+	    return m;
+	}
+    }
+
+    /** One logical process, simulating one partition of the model
+     *  <p>Each instant is simulated in three phases: first the moves, then
+     *  the messages for that time, including the arrivals and departures
+     *  just sent to itself, then all other events.
+     */
+    class Process {
+	final int id;
+	final SimulationContext ctx;
+	private final Person[] people; // the people whose home is here
+	private final Place[] places;  // the places owned here
+
+	private long lvt = Long.MIN_VALUE; // local virtual time
+	private boolean moving = false; // simulating the moves of an instant
+
+	// messages received, both simulated and not, in order
+	private final TreeSet<Message> input = new TreeSet<>();
+	// messages and anti-messages from other processes, not yet received
+	private final ConcurrentLinkedQueue<Message> inbox =
+	    new ConcurrentLinkedQueue<>();
+	// messages sent to others, in order of time
+	private final ArrayDeque<Message> output = new ArrayDeque<>();
+	// messages sent in a past undone by rollback, maybe to be cancelled
+	private final TreeSet<Message> unverified = new TreeSet<>();
+	// how many messages were sent about each person in this instant
+	private final HashMap<Person,Integer> counts = new HashMap<>();
+
+	private final ArrayDeque<Checkpoint> checkpoints = new ArrayDeque<>();
+	private long nextCheckpoint = Long.MIN_VALUE;
+
+	// population statistics at the end of each day simulated
+	private final ArrayList<int[]> days = new ArrayList<>();
+
+	// statistics
+	long instants = 0;   // instants simulated, including those undone
+	long rollbacks = 0;
+	long sent = 0;
+	long cancelled = 0;  // anti-messages sent
+	int mostStates = 0;   // the most saved states kept after a round
+	int mostMessages = 0; // the most messages kept after a round
+
+	Process( int i, SimulationContext c ) {
+	    id = i;
+	    ctx = c;
+	    ctx.lp = this;
+	    ArrayList<Person> pp = new ArrayList<>();
+	    for (Person p: ctx.allPeople) if (p.ctx == ctx) pp.add( p );
+	    people = pp.toArray( new Person[pp.size()] );
+	    ArrayList<Place> pl = new ArrayList<>();
+	    for (Place p: ctx.allPlaces) if (p.owner == ctx) pl.add( p );
+	    places = pl.toArray( new Place[pl.size()] );
+	    checkpoints.add( new Checkpoint( Long.MIN_VALUE ) );
+	}
+
+	/** The state of this process, saved before some instant
+	 */
+	private class Checkpoint {
+	    final long time;  // the instant before which this was saved
+	    final long lvt;
+	    final Simulator.Saved events;
+	    final Person.Saved[] people;
+	    final Place.Saved[] places;
+	    final int[] population;
+	    final MyRandom rand;
+
+	    Checkpoint( long t ) {
+		time = t;
+		lvt = Process.this.lvt;
+		events = ctx.simulator.save();
+		people = new Person.Saved[Process.this.people.length];
+		for (int i = 0; i < people.length; i++) {
+		    people[i] = Process.this.people[i].save();
+		}
+		places = new Place.Saved[Process.this.places.length];
+		for (int i = 0; i < places.length; i++) {
+		    places[i] = Process.this.places[i].save();
+		}
+		population = ctx.population.clone();
+		rand = new MyRandom( ctx.rand );
+	    }
+
+	    /** Put the process back in this state
+	     */
+	    void restore() {
+		Process.this.lvt = lvt;
+		ctx.simulator.restore( events );
+		for (int i = 0; i < people.length; i++) {
+		    Process.this.people[i].restore( people[i] );
+		}
+		for (int i = 0; i < places.length; i++) {
+		    Process.this.places[i].restore( places[i] );
+		}
+		System.arraycopy(
+		    population, 0, ctx.population, 0, population.length
+		);
+		ctx.rand.restore( rand );
+	    }
+	}
+
+	// the interface to the model, see Person and Place
+
+	/** A person from here leaves a place
+	 *  @param time  when
+	 *  @param place  where from
+	 *  @param p  who
+	 *  @param c  true if they are contageous
+	 */
+	void depart( long time, Place place, Person p, boolean c ) {
+	    if ((place.owner == ctx) && !moving) {
+		place.depart( time, p, c );
+	    } else {
+		send( time, Kind.depart, place, p, c ? 1 : 0, 0.0 );
+	    }
+	}
+
+	/** A person from here arrives at a place
+	 *  @param time  when
+	 *  @param place  where
+	 *  @param p  who
+	 *  @param c  true if they are contageous
+	 */
+	void arrive( long time, Place place, Person p, boolean c ) {
+	    if ((place.owner == ctx) && !moving) {
+		place.arrive( time, p, c );
+	    } else {
+		send( time, Kind.arrive, place, p, c ? 1 : 0, 0.0 );
+	    }
+	}
+
+	/** A person from here changes contageon at a place owned elsewhere
+	 *  @param time  when
+	 *  @param place  where
+	 *  @param p  who
+	 *  @param c  +1 or -1, the change
+	 */
+	void contageous( long time, Place place, Person p, int c ) {
+	    send( time, Kind.contageous, place, p, c, 0.0 );
+	}
+
+	/** A place here exposes a person from elsewhere to infection
+	 *  @param time  when
+	 *  @param p  who
+	 *  @param mean  the mean delay until infection
+	 */
+	void expose( long time, Person p, double mean ) {
+	    send( time, Kind.expose, null, p, 0, mean );
+	}
+
+	// sending and receiving messages
+
+	/** Send a message about a person
+	 *  <p>Messages to places owned here are only sent during moves; they
+	 *  are simulated later in the same instant.
+	 */
+	private void send(
+	    long time, Kind kind, Place place, Person p, int v, double mean
+	) {
+	    Process to = (place == null) ? p.ctx.lp : place.owner.lp;
+	    Integer c = counts.get( p );
+	    int count = (c == null) ? 0 : c;
+	    counts.put( p, count + 1 );
+	    Message m = new Message( time, p.rank, id, count,
+		kind, place, p, v, mean
+	    );
+	    m.dest = to;
+	    if (to == this) {
+		m.self = true;
+		input.add( m );
+		return;
+	    }
+
+	    // after a rollback, maybe this was sent already
+	    Message old = unverified.ceiling( m );
+	    if ((old != null) && (old.compareTo( m ) == 0)) {
+		unverified.remove( old );
+		if (old.sameAs( m )) {
+		    output.add( old );
+		    return;
+		}
+		old.dest.inbox.add( old.anti() );
+		cancelled = cancelled + 1;
+	    }
+	    output.add( m );
+	    to.inbox.add( m );
+	    sent = sent + 1;
+	}
+
+	/** Cancel messages sent in an undone past and not sent again
+	 *  @param t  messages before this time will not be sent again
+	 */
+	private void cancelUnverified( long t ) {
+	    while (!unverified.isEmpty() && (unverified.first().time < t)) {
+		Message old = unverified.pollFirst();
+		old.dest.inbox.add( old.anti() );
+		cancelled = cancelled + 1;
+	    }
+	}
+
+	/** Receive a message or anti-message
+	 *  <p>A message is a straggler if it is in the past of this process,
+	 *  or in the past of its latest saved state.  Just after a rollback,
+	 *  that state may be of a later instant than <code>lvt</code>, since
+	 *  it was saved as that instant began, and a message that falls
+	 *  between them would be missing from it were it restored again.
+	 *  @param m  the message
+	 */
+	private void receive( Message m ) {
+	    if ((m.time <= lvt) || (m.time < checkpoints.peekLast().time)) {
+		rollback( m.time ); // a straggler
+	    }
+	    if (m.anti) {
+		boolean found = input.remove( m );
+		assert found: "anti-message without message";
+	    } else {
+		input.add( m );
+	    }
+	}
+
+	/** Undo the simulation of every instant at or after some time
+	 *  <p>The oldest saved state is at or before GVT, see
+	 *  <code>fossilCollect</code>, and no straggler can be older than
+	 *  GVT, so there is always a state to go back to; if not, GVT was
+	 *  wrong, and the run cannot go on.
+	 *  @param t  the time
+	 */
+	private void rollback( long t ) {
+	    while ((checkpoints.size() > 1) && (checkpoints.peekLast().time > t)) {
+		checkpoints.pollLast();
+	    }
+	    Checkpoint cp = checkpoints.peekLast();
+	    if (cp.time > t) Error.fatal(
+		"time warp: process " + id + " got a straggler at day "
+		+ Time.days( t ) + ", before its oldest saved state, day "
+		+ Time.days( cp.time )
+	    );
+	    cp.restore();
+	    nextCheckpoint = cp.time + checkpointInterval;
+	    rollbacks = rollbacks + 1;
+
+	    // messages sent to self since then will be sent again
+	    Iterator<Message> i = input.tailSet(
+		Message.probe( cp.time, false )
+	    ).iterator();
+	    while (i.hasNext()) if (i.next().self) i.remove();
+
+	    // messages sent to others since then may or may not be
+	    while (!output.isEmpty() && (output.peekLast().time >= cp.time)) {
+		unverified.add( output.pollLast() );
+	    }
+
+	    // days ending since then will be reported again
+	    while (!days.isEmpty() && ((days.size() - 1) * Time.day >= cp.time)) {
+		days.remove( days.size() - 1 );
+	    }
+	}
+
+	// simulation
+
+	/** @return the time of the next instant to simulate
+	 */
+	long nextTime() {
+	    long t = ctx.simulator.nextTime();
+	    Message m = input.higher( Message.probe( lvt, true ) );
+	    if ((m != null) && (m.time < t)) t = m.time;
+	    return t;
+	}
+
+	/** @return the earliest time at which this process may yet change
+	 *  anything, including by cancelling messages; inbox included
+	 */
+	long minTime() {
+	    long t = nextTime();
+	    if (!unverified.isEmpty()) t = Math.min( t, unverified.first().time );
+	    for (Message m: inbox) t = Math.min( t, m.time );
+	    return t;
+	}
+
+	/** Simulate one instant
+	 *  @param t  its time
+	 */
+	private void simulate( long t ) {
+	    cancelUnverified( t );
+	    while ((days.size() * Time.day < t) && (days.size() * Time.day <= end)) {
+		days.add( ctx.population.clone() );
+	    }
+	    if (t >= nextCheckpoint) {
+		checkpoints.add( new Checkpoint( t ) );
+		nextCheckpoint = t + checkpointInterval;
+	    }
+	    counts.clear();
+	    instants = instants + 1;
+
+	    if (Arrays.binarySearch( steps, t % Time.day ) >= 0) {
+		moving = true;
+		ctx.simulator.runUntil( t ); // stops at the sync event
+		moving = false;
+	    }
+	    for (Message m = input.higher( Message.probe( lvt, true ) );
+		(m != null) && (m.time == t);
+		m = input.higher( m )
+	    ) {
+		switch (m.kind) {
+		case depart: m.place.depart( t, m.person, m.value != 0 ); break;
+		case arrive: m.place.arrive( t, m.person, m.value != 0 ); break;
+		case contageous: m.place.contageous( t, m.value ); break;
+		case expose: m.person.scheduleInfect( t, m.mean ); break;
+		}
+	    }
+	    ctx.simulator.runUntil( t );
+	    lvt = t;
+	}
+
+	/** Receive messages, then simulate ahead as far as allowed
+	 *  @param horizon  how far to go
+	 */
+	void round( long horizon ) {
+	    Message m;
+	    while ((m = inbox.poll()) != null) receive( m );
+	    for (int i = 0; i < roundLength; i++) {
+		long t = nextTime();
+		if (t > horizon) break;
+		simulate( t );
+	    }
+	    cancelUnverified( nextTime() );
+	}
+
+	/** Discard what can no longer be needed
+	 *  @param gvt  global virtual time
+	 */
+	void fossilCollect( long gvt ) {
+	    // keep the last checkpoint at or before GVT, and those after it
+	    while (checkpoints.size() > 1) {
+		Checkpoint first = checkpoints.pollFirst();
+		if (checkpoints.peekFirst().time > gvt) {
+		    checkpoints.addFirst( first );
+		    break;
+		}
+	    }
+	    long keep = checkpoints.peekFirst().time;
+	    input.headSet( Message.probe( keep, false ) ).clear();
+	    while (!output.isEmpty() && (output.peekFirst().time < keep)) {
+		output.pollFirst();
+	    }
+	    mostStates = Math.max( mostStates, checkpoints.size() );
+	    mostMessages = Math.max( mostMessages, input.size() + output.size() );
+	}
+
+	/** Get the population statistics at the end of a day
+	 *  <p>This is only correct once GVT has passed that day.
+	 *  @param d  the number of the day
+	 *  @return the population in each disease state
+	 */
+	int[] day( int d ) {
+	    return (d < days.size()) ? days.get( d ) : ctx.population;
+	}
+    }
+
+    /** Run the simulation up to some time
+     *  <p>This prints the daily report of the whole population, each day
+     *  as soon as GVT has passed it.
+     *  @param e  the time to run until
+     */
+    public void runUntil( long e ) {
+	end = e;
+	long gvt = gvt();
+	while (gvt <= end) {
+	    final long horizon = Math.min( end, gvt + window );
+	    Arrays.stream( lps ).parallel().forEach(
+		(Process p) -> p.round( horizon )
+	    );
+	    rounds = rounds + 1;
+	    gvt = gvt();
+	    for (Process p: lps) p.fossilCollect( gvt );
+	    report( gvt );
+	}
+	report( Long.MAX_VALUE );
+    }
+
+    /** Print what each logical process did
+     *  <p>Instants simulated include those later undone by rollback, so
+     *  the excess over a sequential run is the cost of optimism.  What
+     *  each process kept after fossil collection shows whether memory
+     *  stays bounded; it should not grow with the length of the run.
+     *  @param out  where to print it
+     */
+    public void printStatistics( PrintStream out ) {
+	out.printf( "time warp rounds %d\n", rounds );
+	for (Process p: lps) {
+	    out.printf(
+		"  process %d instants %d rollbacks %d sent %d anti %d\n",
+		p.id, p.instants, p.rollbacks, p.sent, p.cancelled
+	    );
+	    out.printf( "    most kept %d states %d messages\n",
+		p.mostStates, p.mostMessages
+	    );
+	}
+    }
+
+    /** @return global virtual time, computed while no process is running
+     */
+    private long gvt() {
+	long t = Long.MAX_VALUE;
+	for (Process p: lps) t = Math.min( t, p.minTime() );
+	return t;
+    }
+
+    /** Report the days that GVT has passed
+     *  @param gvt  global virtual time
+     */
+    private void report( long gvt ) {
+	while ((reported * Time.day < gvt) && (reported * Time.day <= end)) {
+	    Arrays.fill( model.population, 0 );
+	    for (Process p: lps) {
+		int[] pop = p.day( reported );
+		for (int s = 0; s < pop.length; s++) {
+		    model.population[s] = model.population[s] + pop[s];
+		}
+	    }
+	    Person.report( model, reported * Time.day );
+	    reported = reported + 1;
+	}
+    }
+}
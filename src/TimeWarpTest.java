@@ -0,0 +1,107 @@
+// TimeWarpTest.java
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Checks that Time Warp gives the same epidemics as sequential simulation,
+ *  and that its memory stays bounded
+ *  <p>With <code>-timewarp</code>, each logical process draws from its own
+ *  stream of random numbers, so for a given seed the run differs from a
+ *  sequential one.  Over many seeds, though, the final size of the
+ *  epidemic must have the same distribution either way, however often
+ *  processes rolled back, sent anti-messages and collected fossils on the
+ *  way.  This is checked on a town where people move between places, so
+ *  processes exchange messages all day.  For a given seed and number of
+ *  processes, the output must also be the same from run to run, though
+ *  which messages straggle depends on how the threads happen to run.
+ *  <p>Fossil collection must keep the saved states and messages each
+ *  process holds from growing with the length of the run: the most any
+ *  process kept in a run many times longer must be about the same.
+ *  <p>Usage: java -ea TimeWarpTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see TimeWarpSimulator
+ */
+class TimeWarpTest {
+    private static final int seeds = 300; // runs of each engine
+    private static final int days = 60;
+    private static final int longer = 12; // times as long, for memory
+    private static final double growth = 2.0; // most allowed in that time
+    private static final int repeated = 10; // seeds run more than once
+    private static final int repeats = 3;   // runs of each of them
+
+    // the Time Warp runs, one set of options per check
+    private static final String[][] options = {
+	{ "-timewarp", "-threads", "2" }, { "-timewarp", "-threads", "4" }
+    };
+
+    // many processes, so stragglers are common
+    private static final String[] many = { "-timewarp", "-threads", "8" };
+
+    // what each process kept, see TimeWarpSimulator.printStatistics
+    private static final Pattern kept = Pattern.compile(
+	"most kept (\\d+) states (\\d+) messages"
+    );
+
+    /** The most any process kept after fossil collection in one run
+     *  @param end  the end of time, in days
+     *  @return the most saved states and the most messages
+     */
+    private static int[] mostKept( int end ) {
+	final String file = TestRun.model( TestRun.town( end ) );
+	final String stats = TestRun.run( true, TestRun.line( file, 0,
+	    options[options.length - 1], "-stats"
+	) );
+	final int[] most = new int[2];
+	final Matcher m = kept.matcher( stats );
+	boolean found = false;
+	while (m.find()) {
+	    found = true;
+	    most[0] = Math.max( most[0], Integer.parseInt( m.group( 1 ) ) );
+	    most[1] = Math.max( most[1], Integer.parseInt( m.group( 2 ) ) );
+	}
+	if (!found) Error.fatal( "no report of what processes kept" );
+	return most;
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( TestRun.town( days ) );
+	final double[] sequential = TestRun.finalSizes(
+	    file, 0, seeds, new String[] {}
+	);
+	for (int i = 0; i < options.length; i++) {
+	    // seeds not used for any other run, so the samples are independent
+	    final double[] warped = TestRun.finalSizes(
+		file, (i + 1) * seeds, seeds, options[i]
+	    );
+	    TestRun.sameDistribution( "final size, sequential and "
+		+ String.join( " ", options[i] ), sequential, warped
+	    );
+	}
+
+	for (int s = 0; s < repeated; s++) {
+	    final String first = TestRun.run( TestRun.line( file, s, many ) );
+	    for (int r = 1; r < repeats; r++) {
+		if (!first.equals( TestRun.run( TestRun.line( file, s, many ) ) )) {
+		    Error.fatal( String.join( " ", many ) + " seed " + s
+			+ ": runs differ"
+		    );
+		}
+	    }
+	}
+	System.out.println( String.join( " ", many ) + ": runs repeatable" );
+
+	final int[] brief = mostKept( days );
+	final int[] lasting = mostKept( days * longer );
+	System.out.printf( "most kept in %d and %d days: %d and %d states, "
+	    + "%d and %d messages\n",
+	    days, days * longer, brief[0], lasting[0], brief[1], lasting[1]
+	);
+	if ((lasting[0] > growth * brief[0]) || (lasting[1] > growth * brief[1])) {
+	    Error.fatal( "Time Warp kept more the longer it ran" );
+	}
+    }
+}
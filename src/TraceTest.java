@@ -0,0 +1,54 @@
+// TraceTest.java
+
+/** Checks that replaying an event trace reproduces the recorded run
+ *  <p>Each run is traced, then the trace is replayed.  The replay must
+ *  print exactly the report the run printed, and it exits with an error
+ *  if the state of the places it rebuilt is not the state the run left
+ *  them in.  Tracing must not change the run.  This is checked for
+ *  several seeds and for the options that change which events are traced.
+ *  <p>Usage: java -ea TraceTest, which says what it checked and exits
+ *  with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see EventTrace
+ */
+class TraceTest {
+    private static final int seeds = 5;
+
+    // the options that change what is traced, one set per check
+    private static final String[][] options = {
+	{}, { "-aggregate" }, { "-hazardclock" }, { "-adaptive" },
+	{ "-calendar" }
+    };
+
+    /** Check one way of running the model
+     *  @param file  the model
+     *  @param trace  where to record it
+     *  @param o  the options
+     */
+    private static void check( String file, String trace, String[] o ) {
+	final String label = (o.length == 0) ? "default" : String.join( " ", o );
+	for (int s = 0; s < seeds; s++) {
+	    final String what = label + " seed " + s;
+	    final String original = TestRun.run( TestRun.line( file, s, o ) );
+	    final String traced = TestRun.run( TestRun.line( file, s, o,
+		"-trace", trace
+	    ) );
+	    if (!original.equals( traced )) {
+		Error.fatal( what + ": tracing changed the run" );
+	    }
+	    if (!traced.equals( TestRun.run( "-replay", trace ) )) {
+		Error.fatal( what + ": replay differs from the traced run" );
+	    }
+	}
+	System.out.println( label + ": replay reproduces the traced run" );
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( TestRun.town( 40 ) );
+	final String trace = TestRun.temp( ".trace" );
+	for (String[] o: options) check( file, trace, o );
+    }
+}
@@ -0,0 +1,222 @@
+// TransmissionTree.java
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** A binary record of who infected whom, and where
+ *  <p>The file begins with the names of the kinds of places in the model.
+ *  After that comes one fixed-size record per infection, giving its time,
+ *  the person infected, the person blamed for it, the place where it
+ *  happened and the kind of that place.  People infected as the model is
+ *  built come first, blamed on nobody; a tree of a run restored from a
+ *  checkpoint has none of these, since the tree of the run that took the
+ *  checkpoint already holds them.
+ *  <p>The simulation only knows how dangerous a place is, not who made it
+ *  so.  Every contageous person in a place adds the same to the hazard of
+ *  infection there, so the person blamed is drawn uniformly from the
+ *  contageous occupants of the place.  The draw is made when the rate of
+ *  a person's infection is set from the place where they are, and kept
+ *  with the pending infection, see <code>Person.exposed</code>; an
+ *  infection drawn in one place that happens after the person has moved
+ *  on is blamed on that place and someone who was there.  These draws
+ *  come from a stream of their own, so recording the tree does not change
+ *  the course of the epidemic.
+ *  <p>The contageous occupants of the place last drawn from are kept
+ *  until its contageon changes, so telling everyone in a place their risk
+ *  costs one pass over its occupants and one draw each.  Records are
+ *  collected in a buffer that is written out when it fills, so recording
+ *  one costs a few stores.
+ *  <p>Only sequential simulations can be recorded, since the partitions of
+ *  a parallel simulation infect people in no one order.
+ *  @version Oct. 16, 2026
+ *  @see Person#exposed
+ *  @see Place#contageousOccupants
+ */
+class TransmissionTree {
+    private static final int magic = 0x54524545; // "TREE"
+    private static final int version = 1;
+    private static final int recordSize = Long.BYTES + 4 * Integer.BYTES;
+
+    private final SimulationContext ctx;   // the simulation recorded
+    private final MyRandom rand;           // for choosing whom to blame
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate( 1 << 16 );
+
+    // the contageous occupants of one place, see blame
+    private Place listed = null;
+    private Person[] blamable = new Person[16];
+    private int blamables = 0;
+
+    /** Start recording the infections of a simulation
+     *  <p>The model must be built, and simulation not yet begun.
+     *  @param c  the simulation
+     *  @param file  the name of the file, which is replaced
+     *  @param index  whether to record who is already infected
+     */
+    TransmissionTree( SimulationContext c, String file, boolean index ) {
+	ctx = c;
+	rand = new MyRandom( new MyRandom( ctx.rand ).nextLong() );
+	channel = open( file );
+
+	buffer.putInt( magic );
+	buffer.putInt( version );
+	buffer.putInt( ctx.allPlaceKinds.size() );
+	for (PlaceKind k: ctx.allPlaceKinds) {
+	    byte[] name = k.name.getBytes( StandardCharsets.UTF_8 );
+	    room( Integer.BYTES + name.length );
+	    buffer.putInt( name.length );
+	    buffer.put( name );
+	}
+	if (index) for (Person p: ctx.allPeople) {
+	    if (!p.isSusceptible()) put( 0, p.id, -1, p.location() );
+	}
+    }
+
+    /** Open a tree file for writing, any failure is fatal
+     *  @param file  the name of the file, which is replaced
+     *  @return the channel
+     */
+    private static FileChannel open( String file ) {
+	try {
+	    return FileChannel.open( Path.of( file ),
+		StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		StandardOpenOption.TRUNCATE_EXISTING
+	    );
+	} catch (IOException e) {
+	    Error.fatal( "could not open tree " + file + ": " + e.getMessage() );
+	    return null; // never happens, fatal does not return
+	}
+    }
+
+    /** Make sure the buffer has room for some bytes, writing it out if not
+     *  @param n  the number of bytes needed
+     */
+    private void room( int n ) {
+	if (buffer.remaining() >= n) return;
+	buffer.flip();
+	try {
+	    while (buffer.hasRemaining()) channel.write( buffer );
+	} catch (IOException e) {
+	    Error.fatal( "tree: " + e.getMessage() );
+	}
+	buffer.clear();
+    }
+
+    /** Record one infection
+     *  @param time  when it happened
+     *  @param p  the id of the person infected
+     *  @param from  the id of the person blamed, or -1
+     *  @param place  the id of the place where it happened, or -1
+     */
+    private void put( long time, int p, int from, int place ) {
+	room( recordSize );
+	buffer.putLong( time );
+	buffer.putInt( p );
+	buffer.putInt( from );
+	buffer.putInt( place );
+	buffer.putInt( (place < 0) ? -1 : ctx.placeStore.kind[place] );
+    }
+
+    /** Pick someone to blame for an infection in a place
+     *  @param place  the id of the place
+     *  @return the id of one of its contageous occupants, or -1 if none
+     */
+    int blame( int place ) {
+	final Place here = ctx.allPlaces.get( place );
+	if (here != listed) {
+	    if (blamable.length < here.occupantCount()) {
+		blamable = new Person[Math.max( 2 * blamable.length,
+		    here.occupantCount()
+		)];
+	    }
+	    blamables = here.contageousOccupants( blamable );
+	    listed = here;
+	}
+	if (blamables == 0) return -1;
+	return blamable[rand.nextInt( blamables )].id;
+    }
+
+    /** Forget who is contageous in a place, since that changed
+     *  @param here  the place
+     */
+    void forget( Place here ) {
+	if (here == listed) listed = null;
+    }
+
+    /** Record an infection
+     *  @param time  when it happened
+     *  @param p  the person infected
+     *  @param place  the id of the place they were exposed in, or -1
+     *  @param from  the id of the person blamed, never -1
+     */
+    void record( long time, Person p, int place, int from ) {
+	assert from >= 0: "infection of " + p.id + " with nobody to blame";
+	put( time, p.id, from, place );
+    }
+
+    /** Finish the tree, writing out whatever is buffered
+     */
+    void close() {
+	room( buffer.capacity() );
+	try {
+	    channel.close();
+	} catch (IOException e) {
+	    Error.fatal( "tree: " + e.getMessage() );
+	}
+    }
+
+    /** Print a tree as CSV, one line per infection
+     *  @param file  the name of the tree file
+     *  @param out  where to print it
+     */
+    static void print( String file, PrintStream out ) {
+	try (DataInputStream in = new DataInputStream(
+	    new BufferedInputStream( new FileInputStream( file ) )
+	)) {
+	    if ((in.readInt() != magic) || (in.readInt() != version)) {
+		Error.fatal( file + ": not a transmission tree" );
+	    }
+	    final String[] kinds = new String[in.readInt()];
+	    for (int i = 0; i < kinds.length; i++) {
+		byte[] name = new byte[in.readInt()];
+		in.readFully( name );
+		kinds[i] = new String( name, StandardCharsets.UTF_8 );
+	    }
+
+	    out.println( "time,infected,infector,place,kind" );
+	    for (;;) {
+		final long time;
+		try {
+		    time = in.readLong();
+		} catch (EOFException e) {
+		    break;
+		}
+		final int p = in.readInt();
+		final int from = in.readInt();
+		final int place = in.readInt();
+		final int kind = in.readInt();
+		out.print( Double.toString( Time.days( time ) ) );
+		out.print( "," );
+		out.print( p );
+		out.print( "," );
+		out.print( from );
+		out.print( "," );
+		out.print( place );
+		out.print( "," );
+		out.println( (kind < 0) ? "" : kinds[kind] );
+	    }
+	} catch (IOException e) {
+	    Error.fatal( "could not read tree " + file + ": " + e.getMessage() );
+	}
+	out.flush();
+    }
+}
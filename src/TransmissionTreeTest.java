@@ -0,0 +1,98 @@
+// TransmissionTreeTest.java
+
+import java.util.HashMap;
+import java.util.Set;
+
+/** Checks the transmission tree recorded by -tree and printed by -printtree
+ *  <p>For several seeds and for each way infection can be simulated, the
+ *  tree must not change the run, and as printed it must hold one row per
+ *  person ever infected, in order of time: first those infected as the
+ *  model is built, at home and blamed on nobody, then the rest, each blamed
+ *  on someone infected before them, in a place of a kind the model has.
+ *  <p>Usage: java -ea TransmissionTreeTest, which says what it checked and
+ *  exits with an error if any check fails.
+ *  @version Oct. 17, 2026
+ *  @see TransmissionTree
+ */
+class TransmissionTreeTest {
+    private static final int seeds = 5;
+    private static final int infected = 3; // as TestRun.town is built
+
+    // the kinds of places in TestRun.town
+    private static final Set<String> kinds = Set.of( "home", "work", "school" );
+
+    // the ways infection is simulated, one set per check
+    private static final String[][] options = {
+	{}, { "-aggregate" }, { "-hazardclock" }, { "-adaptive" }
+    };
+
+    /** Check one way of running the model
+     *  @param file  the model
+     *  @param tree  where to record it
+     *  @param o  the options
+     */
+    private static void check( String file, String tree, String[] o ) {
+	final String label = (o.length == 0) ? "default" : String.join( " ", o );
+	for (int s = 0; s < seeds; s++) {
+	    final String what = label + " seed " + s;
+	    final String original = TestRun.run( TestRun.line( file, s, o ) );
+	    final String recorded = TestRun.run( TestRun.line( file, s, o,
+		"-tree", tree
+	    ) );
+	    if (!original.equals( recorded )) {
+		Error.fatal( what + ": recording the tree changed the run" );
+	    }
+
+	    final String[] rows = TestRun.run( "-printtree", tree ).split( "\n" );
+	    if (!rows[0].equals( "time,infected,infector,place,kind" )) {
+		Error.fatal( what + ": tree has no heading" );
+	    }
+	    final double[] last = TestRun.last( original );
+	    final int population = (int)(last[1] + last[2] + last[3] + last[4]
+		+ last[5] + last[6] + last[7]
+	    );
+	    if (rows.length - 1 != population - last[1]) {
+		Error.fatal( what + ": " + (rows.length - 1) + " infections in"
+		    + " the tree, " + (population - last[1]) + " in the run"
+		);
+	    }
+
+	    // when each person was infected
+	    final HashMap<Integer,Double> when = new HashMap<>();
+	    double previous = 0.0;
+	    for (int i = 1; i < rows.length; i++) {
+		final String[] f = rows[i].split( ",", -1 );
+		final double time = Double.parseDouble( f[0] );
+		final int p = Integer.parseInt( f[1] );
+		final int from = Integer.parseInt( f[2] );
+		final int place = Integer.parseInt( f[3] );
+		final String row = what + ": row " + i + " " + rows[i];
+		if ((time < previous) || (when.put( p, time ) != null)) {
+		    Error.fatal( row + ": out of order or infected twice" );
+		}
+		previous = time;
+		if ((place < 0) || !kinds.contains( f[4] )) {
+		    Error.fatal( row + ": not in a place of the model" );
+		}
+		if (i <= infected) { // infected at home as the model was built
+		    if ((time != 0.0) || (from >= 0)) {
+			Error.fatal( row + ": not an initial infection" );
+		    }
+		} else if ((from < 0) || !when.containsKey( from )
+		||  (when.get( from ) >= time)) {
+		    Error.fatal( row + ": blamed on someone not yet infected" );
+		}
+	    }
+	}
+	System.out.println( label + ": tree holds each infection, in order" );
+    }
+
+    /** The main program
+     *  @param args  ignored
+     */
+    public static void main( String[] args ) {
+	final String file = TestRun.model( TestRun.town( 40 ) );
+	final String tree = TestRun.temp( ".tree" );
+	for (String[] o: options) check( file, tree, o );
+    }
+}
@@ -0,0 +1,177 @@
+// TwoTierEventSet.java
+
+import java.util.function.Consumer;
+
+/** Pending event set in two tiers, a timing wheel and a heap
+ *  <p>Most events in the epidemic model are moves, which happen only at
+ *  the few times of day when schedules start and end, and never more than
+ *  a day ahead.  These, and the other coded events whose kind is
+ *  <code>daily</code>, go on a timing wheel with one slot per
+ *  <code>width</code> of the day; each slot is a sorted list, and events
+ *  for the same time of day on different days share a slot, so the wheel
+ *  turns once a day.  Adding a move costs O(1), because moves for the same
+ *  time are added in order, and taking the next batch of moves costs
+ *  O(1) plus a share of the scan over the empty slots of the day.
+ *  <p>Everything else, changes of disease state spread over days by
+ *  random delays and any events with actions, goes in a binary heap, which
+ *  is therefore much smaller than it would be if it held everything.
+ *  <p>Each kind of event lives in only one tier, so simultaneous events
+ *  of the two tiers are merged in the order they were scheduled.
+ *  @version Oct. 16, 2026
+ *  @see PendingEventSet
+ *  @see EventKind#daily
+ *  @see CalendarQueue, which is like the wheel, but with a variable year
+ */
+class TwoTierEventSet implements PendingEventSet {
+    private final long width;          // the time span of one slot
+    private final EventList[] wheel;   // one slot for each width of a day
+    private long current = 0;          // the virtual slot now being examined
+    private int wheelCount = 0;        // the number of events on the wheel
+    private Simulator.RealEvent next = null; // earliest on the wheel, if known
+
+    private final HeapEventSet heap = new HeapEventSet(); // everything else
+
+    private final EventList run = new EventList(); // staging for a batch
+
+    /** Construct an empty two-tier event set
+     *  @param w  the width of a slot of the wheel; it should divide a day
+     *            and be no greater than the shortest interval between
+     *            distinct move times
+     */
+    TwoTierEventSet( long w ) {
+	width = w;
+	wheel = new EventList[(int)((Time.day + w - 1) / w)];
+	for (int i = 0; i < wheel.length; i++) wheel[i] = new EventList();
+    }
+
+    /** Construct an empty two-tier event set with one-minute slots
+     */
+    TwoTierEventSet() {
+	this( Time.minute );
+    }
+
+    /** Does an event belong on the wheel?
+     *  @param e  the event
+     *  @return true if it does, false if it belongs in the heap
+     */
+    private static boolean onWheel( Simulator.RealEvent e ) {
+	return (e.kind != null) && e.kind.daily;
+    }
+
+    /** Which virtual slot, counting from time zero, holds some time?
+     *  @param t  the time
+     *  @return the virtual slot number
+     */
+    private long virtual( long t ) {
+	return t / width;
+    }
+
+    public void add( Simulator.RealEvent e ) {
+	if (!onWheel( e )) {
+	    heap.add( e );
+	    return;
+	}
+	long v = virtual( e.time );
+	if (v < current) current = v;
+	wheel[(int)(v % wheel.length)].insert( e );
+	wheelCount = wheelCount + 1;
+	if ((next != null) && e.before( next )) next = e;
+    }
+
+    public boolean remove( Simulator.RealEvent e ) {
+	if (e.list == null) return heap.remove( e );
+	e.list.unlink( e );
+	wheelCount = wheelCount - 1;
+	if (e == next) next = null;
+	return true;
+    }
+
+    /** Find the earliest event on the wheel
+     *  @return the event, or null if there are none
+     */
+    private Simulator.RealEvent find() {
+	if ((next != null) || (wheelCount == 0)) return next;
+
+	// search one turn of the wheel, starting where we left off
+	for (int i = 0; i < wheel.length; i++) {
+	    Simulator.RealEvent e = wheel[(int)(current % wheel.length)].head;
+	    if ((e != null) && (virtual( e.time ) <= current)) {
+		next = e;
+		return e;
+	    }
+	    current = current + 1;
+	}
+
+	// nothing for a day, so the next event is far off; find it directly
+	for (EventList s: wheel) {
+	    if ((s.head != null) && ((next == null) || s.head.before( next ))) {
+		next = s.head;
+	    }
+	}
+	current = virtual( next.time );
+	return next;
+    }
+
+    public Simulator.RealEvent poll() {
+	Simulator.RealEvent w = find();
+	Simulator.RealEvent h = heap.peek();
+	if ((w == null) || ((h != null) && h.before( w ))) return heap.poll();
+	remove( w );
+	return w;
+    }
+
+    public int pollSimultaneous( EventList l ) {
+	Simulator.RealEvent w = find();
+	Simulator.RealEvent h = heap.peek();
+	if ((w == null) && (h == null)) return 0;
+	final long t = ((w == null) || ((h != null) && h.before( w )))
+	    ? h.time
+	    : w.time;
+
+	// the moves at t are together at the head of their slot
+	if ((w != null) && (w.time == t)) {
+	    wheelCount = wheelCount - run.takeSimultaneous( w.list );
+	    next = null;
+	}
+
+	// merge them with the events in the heap at t
+	int n = 0;
+	for (;;) {
+	    h = heap.peek();
+	    boolean fromHeap = (h != null) && (h.time == t);
+	    if (fromHeap && ((run.head == null) || h.before( run.head ))) {
+		l.append( heap.poll() );
+	    } else if (run.head != null) {
+		l.append( run.removeFirst() );
+	    } else {
+		break;
+	    }
+	    n = n + 1;
+	}
+	return n;
+    }
+
+    public Simulator.RealEvent peek() {
+	Simulator.RealEvent w = find();
+	Simulator.RealEvent h = heap.peek();
+	if ((w == null) || ((h != null) && h.before( w ))) return h;
+	return w;
+    }
+
+    public int size() {
+	return wheelCount + heap.size();
+    }
+
+    public void forEach( Consumer<Simulator.RealEvent> action ) {
+	for (EventList s: wheel) s.forEach( action );
+	heap.forEach( action );
+    }
+
+    public boolean reschedule( Simulator.RealEvent e, long t ) {
+	if (e.list == null) return heap.reschedule( e, t );
+	remove( e );
+	e.time = t;
+	add( e );
+	return true;
+    }
+}
@@ -0,0 +1,171 @@
+// WellMixedPlace.java
+
+/**
+ * Places where infection is one process of the place, not of each occupant
+ *
+ * In a plain place, each change in the number of contageous people there
+ * draws a new time of infection for every occupant. Here, the place keeps
+ * one pending event, the next infection anywhere in the place. With c
+ * contageous people, transmissivity t and s susceptible occupants, each
+ * susceptible is infected at rate c*t, so the next infection comes at rate
+ * c*t*s, and the victim is any susceptible occupant, all equally likely.
+ * Because infection times are exponential, this is the same process as
+ * drawing a time for each occupant, but each change costs one draw and one
+ * reschedule however many people are here.
+ *
+ * To pick the victim in constant time, the susceptible occupants are kept
+ * together at the front of occupants.
+ *
+ * This is used for every place when selected on the command line, or for
+ * large places in adaptive simulations. It does not work in a Time Warp
+ * simulation, where the occupants of a place may belong to other
+ * partitions.
+ *
+ * @version Oct. 16, 2026
+ * @see Place
+ * @see PlaceKind#newPlace
+ * @see EventKind#transmit
+ */
+class WellMixedPlace extends Place {
+	int susceptible = 0; // occupants [0, susceptible) are uninfected
+	Simulator.Event next = null; // the next infection here, if any
+
+	/**
+	 * Construct a new well mixed place
+	 *
+	 * @param c -- the simulation that owns it
+	 * @param i -- its id, already added to the store
+	 */
+	WellMixedPlace(SimulationContext c, int i) {
+		super(c, i);
+	}
+
+	@Override
+	void add(Person p) {
+		super.add(p);
+		if (p.isSusceptible()) {
+			swap(occupantCount() - 1, susceptible);
+			susceptible = susceptible + 1;
+		}
+	}
+
+	@Override
+	void remove(Person p) {
+		int i = indexOf(p);
+		if (i < 0)
+			return;
+		if (i < susceptible) {
+			susceptible = susceptible - 1;
+			swap(i, susceptible);
+			i = susceptible;
+		}
+		removeAt(i);
+	}
+
+	@Override
+	void empty() {
+		super.empty();
+		susceptible = 0;
+		if (next != null) {
+			owner.simulator.cancel(next);
+			next = null;
+		}
+	}
+
+	@Override
+	void arrive(long time, Person p, boolean c) {
+		super.arrive(time, p, c);
+		if ((contageousCount() > 0) && p.isSusceptible())
+			touch(time);
+	}
+
+	@Override
+	void depart(long time, Person p, boolean c) {
+		if ((contageousCount() > 0) && p.isSusceptible())
+			touch(time);
+		super.depart(time, p, c);
+	}
+
+	@Override
+	double hazard() {
+		return 0.0; // see transmit
+	}
+
+	@Override
+	int placeClass() {
+		return PlaceKind.wellMixedPlace;
+	}
+
+	@Override
+	void infected(long time, Person p) {
+		int i = indexOf(p);
+		if ((i >= 0) && (i < susceptible)) {
+			susceptible = susceptible - 1;
+			swap(i, susceptible);
+			touch(time);
+		}
+	}
+
+	/**
+	 * draw the time of the next infection here, at the end of an instant
+	 *
+	 * @param time -- the instant at the end of which this is done
+	 */
+	@Override
+	void expose(long time) {
+		store.dirty[id] = false;
+		final double rate = contageousCount() * transmissivity() * susceptible;
+		if (rate <= 0.0) {
+			if (next != null)
+				owner.simulator.cancel(next);
+			next = null;
+			return;
+		}
+		final long t = Time.after(time, owner.rand.nextExponential(1 / rate));
+		if (next == null) {
+			next = owner.simulator.schedule(t, EventKind.transmit, id, 0);
+		} else {
+			owner.simulator.reschedule(next, t);
+		}
+	}
+
+	/**
+	 * someone here is infected
+	 *
+	 * This is a schedulable event service routine.
+	 *
+	 * @param time -- when
+	 */
+	void transmit(long time) {
+		next = null; // this event is over
+		touch(time); // so the next one will be drawn
+		if (susceptible == 0)
+			return; // a change in this instant, not yet accounted for
+		infectOne(time);
+	}
+
+	/**
+	 * infect one susceptible occupant, chosen at random
+	 * 
+	 * @param time -- when There must be at least one, and this changes
+	 *             susceptible, see infected.
+	 */
+	void infectOne(long time) {
+		Person p = occupant(owner.rand.nextInt(susceptible));
+		p.exposed(id);
+		p.infect(time);
+		if (owner.trace != null)
+			owner.trace.record(time, EventKind.infect, p.id);
+	}
+
+	@Override
+	void checkpoint(Checkpoint c) {
+		super.checkpoint(c);
+		c.putInt(c.event(next));
+	}
+
+	@Override
+	void restoreEvents(Checkpoint c) {
+		next = c.event(c.getInt());
+	}
+}